@@ -0,0 +1,62 @@
+package jp.onehr.reflect.cache;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 单个缓存的占用情况，由{@link CacheRegistry#footprint()}生成
+ */
+public final class CacheFootprint implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final long size;
+    private final long bytes;
+
+    /**
+     * 构造
+     *
+     * @param name  缓存名
+     * @param size  估算的缓存数量，未知时为-1
+     * @param bytes 估算的字节数，未知时为-1
+     */
+    public CacheFootprint(String name, long size, long bytes) {
+        this.name = name;
+        this.size = size;
+        this.bytes = bytes;
+    }
+
+    /**
+     * 获取缓存名
+     *
+     * @return 缓存名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取估算的缓存数量
+     *
+     * @return 缓存数量，未知时为-1
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 获取估算的字节数
+     *
+     * @return 字节数，未知时为-1
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{size=" + size + ", bytes=" + bytes + '}';
+    }
+
+}
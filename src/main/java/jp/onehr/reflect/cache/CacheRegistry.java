@@ -0,0 +1,217 @@
+package jp.onehr.reflect.cache;
+
+import jp.onehr.reflect.asserts.Assert;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * 缓存注册中心<br>
+ * 反射相关的缓存（方法、字段、构造、资源查找等）创建时注册到这里，可统一：
+ * <ul>
+ *     <li>清除属于某个{@link ClassLoader}的缓存，用于容器中的应用卸载后立即释放元数据，而不必等待GC</li>
+ *     <li>清空所有缓存</li>
+ *     <li>设置全局的数量或字节数上限，平均分配给支持容量限制的缓存</li>
+ *     <li>获取各缓存的占用情况</li>
+ * </ul>
+ */
+public final class CacheRegistry {
+
+    /**
+     * 估算字节数时，数组中每个反射成员（{@link java.lang.reflect.Method}等）的大小，粗略值
+     */
+    private static final int MEMBER_BYTES = 128;
+
+    private static final Map<String, ManagedCache> CACHES = new ConcurrentHashMap<>();
+    /**
+     * 全局上限，0表示不限制
+     */
+    private static long maximum;
+    /**
+     * 全局上限是否为字节数
+     */
+    private static boolean maximumBytes;
+
+    private CacheRegistry() {
+    }
+
+    /**
+     * 注册缓存，同名的已有缓存被替换，并按当前的全局上限重新分配
+     *
+     * @param name  缓存名
+     * @param cache 缓存
+     */
+    public static void register(String name, ManagedCache cache) {
+        Assert.notNull(name);
+        Assert.notNull(cache);
+        CACHES.put(name, cache);
+        applyMaximum();
+    }
+
+    /**
+     * 取消注册，缓存注册了统计MXBean时同时取消注册MXBean
+     *
+     * @param name 缓存名
+     */
+    public static void unregister(String name) {
+        final ManagedCache cache = CACHES.remove(name);
+        if (null != cache) {
+            if (cache instanceof ClassCache) {
+                ClassCacheStats.unregister(name, (ClassCache<?>) cache);
+            }
+            applyMaximum();
+        }
+    }
+
+    /**
+     * 获取所有注册的缓存
+     *
+     * @return 缓存名和缓存的对应Map，只读
+     */
+    public static Map<String, ManagedCache> getCaches() {
+        return Collections.unmodifiableMap(CACHES);
+    }
+
+    /**
+     * 设置全局的缓存数量上限，平均分配给支持容量限制的缓存，超出时按访问频率驱逐
+     *
+     * @param maximumEntries 上限，0表示不限制
+     */
+    public static void setMaximumEntries(long maximumEntries) {
+        setMaximum(maximumEntries, false);
+    }
+
+    /**
+     * 设置全局的估算字节数上限，平均分配给支持容量限制的缓存，超出时按访问频率驱逐
+     *
+     * @param maximumBytes 上限，0表示不限制
+     */
+    public static void setMaximumBytes(long maximumBytes) {
+        setMaximum(maximumBytes, true);
+    }
+
+    /**
+     * 清除属于指定{@link ClassLoader}（包括其子加载器）的所有缓存<br>
+     * 不可遍历的缓存（如{@link ClassValueCache}）无法只清除这些类，会清空全部内容，之后按需重新加载。
+     *
+     * @param classLoader {@link ClassLoader}
+     */
+    public static void evictClassLoader(ClassLoader classLoader) {
+        Assert.notNull(classLoader);
+        for (ManagedCache cache : CACHES.values()) {
+            cache.evictClassLoader(classLoader);
+        }
+    }
+
+    /**
+     * 清除所有缓存中满足条件的类相关的缓存
+     *
+     * @param predicate 类过滤器，返回{@code true}的类缓存被清除
+     */
+    public static void evictClasses(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        for (ManagedCache cache : CACHES.values()) {
+            cache.evictClasses(predicate);
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public static void clearAll() {
+        for (ManagedCache cache : CACHES.values()) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * 获取各缓存的占用情况，按缓存名排序
+     *
+     * @return 占用情况列表
+     */
+    public static List<CacheFootprint> footprint() {
+        final List<CacheFootprint> result = new ArrayList<>(CACHES.size());
+        new TreeMap<>(CACHES).forEach((name, cache) ->
+                result.add(new CacheFootprint(name, cache.estimatedSize(), cache.estimatedBytes())));
+        return result;
+    }
+
+    /**
+     * 判断类是否属于指定的{@link ClassLoader}，即由其或其子加载器加载
+     *
+     * @param clazz       类
+     * @param classLoader {@link ClassLoader}
+     * @return 是否属于
+     */
+    public static boolean belongsTo(Class<?> clazz, ClassLoader classLoader) {
+        return belongsTo(clazz.getClassLoader(), classLoader);
+    }
+
+    /**
+     * 判断{@link ClassLoader}是否为指定的{@link ClassLoader}或其子加载器
+     *
+     * @param candidate   被检查的{@link ClassLoader}，{@code null}表示启动类加载器
+     * @param classLoader {@link ClassLoader}
+     * @return 是否属于
+     */
+    public static boolean belongsTo(ClassLoader candidate, ClassLoader classLoader) {
+        ClassLoader loader = candidate;
+        while (null != loader) {
+            if (loader == classLoader) {
+                return true;
+            }
+            loader = loader.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * 粗略估算缓存值占用的字节数：反射成员数组按成员数量估算，其它对象按对象头估算
+     *
+     * @param value 缓存值
+     * @return 字节数
+     */
+    static int estimateBytes(Object value) {
+        if (value instanceof Object[]) {
+            final long length = ((Object[]) value).length;
+            return (int) Math.min(Integer.MAX_VALUE, 16 + length * (4 + MEMBER_BYTES));
+        }
+        return 16;
+    }
+
+    /**
+     * 设置全局上限
+     *
+     * @param max   上限，0表示不限制
+     * @param bytes 是否为字节数
+     */
+    private static synchronized void setMaximum(long max, boolean bytes) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Maximum must not be negative: " + max);
+        }
+        maximum = max;
+        maximumBytes = bytes;
+        applyMaximum();
+    }
+
+    /**
+     * 将全局上限平均分配给支持容量限制的缓存
+     */
+    private static synchronized void applyMaximum() {
+        final List<ManagedCache> boundable = new ArrayList<>();
+        for (ManagedCache cache : CACHES.values()) {
+            if (cache.isBoundable()) {
+                boundable.add(cache);
+            }
+        }
+        if (boundable.isEmpty()) {
+            return;
+        }
+        final long share = 0 == maximum ? 0 : Math.max(1, maximum / boundable.size());
+        for (ManagedCache cache : boundable) {
+            cache.setMaximum(share, maximumBytes);
+        }
+    }
+
+}
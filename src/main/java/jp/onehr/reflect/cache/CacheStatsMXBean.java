@@ -0,0 +1,83 @@
+package jp.onehr.reflect.cache;
+
+/**
+ * 缓存统计的JMX接口，注册名为{@code jp.onehr.reflect:type=Cache,name=缓存名}
+ */
+public interface CacheStatsMXBean {
+
+    /**
+     * 获取命中次数
+     *
+     * @return 命中次数
+     */
+    long getHitCount();
+
+    /**
+     * 获取未命中次数
+     *
+     * @return 未命中次数
+     */
+    long getMissCount();
+
+    /**
+     * 获取请求次数
+     *
+     * @return 请求次数
+     */
+    long getRequestCount();
+
+    /**
+     * 获取命中率
+     *
+     * @return 命中率，0~1
+     */
+    double getHitRate();
+
+    /**
+     * 获取加载成功次数
+     *
+     * @return 加载成功次数
+     */
+    long getLoadSuccessCount();
+
+    /**
+     * 获取加载失败次数
+     *
+     * @return 加载失败次数
+     */
+    long getLoadFailureCount();
+
+    /**
+     * 获取加载总耗时
+     *
+     * @return 加载总耗时，单位纳秒
+     */
+    long getTotalLoadTime();
+
+    /**
+     * 获取平均加载耗时
+     *
+     * @return 平均加载耗时，单位纳秒
+     */
+    double getAverageLoadPenalty();
+
+    /**
+     * 获取清除次数
+     *
+     * @return 清除次数
+     */
+    long getEvictionCount();
+
+    /**
+     * 获取估算的缓存数量
+     *
+     * @return 缓存数量，未知时为-1
+     */
+    long getEstimatedSize();
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+}
@@ -0,0 +1,146 @@
+package jp.onehr.reflect.cache;
+
+import jp.onehr.reflect.enums.ReferenceEnum;
+import jp.onehr.reflect.map.CacheStats;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 以{@link Class}为键的缓存<br>
+ * 用于缓存类的反射信息（方法、字段、构造等），类被卸载后对应的缓存随之释放。<br>
+ * 通过{@link #create()}创建，实现由系统属性{@value #PROPERTY_NAME}选择：
+ * <ul>
+ *     <li>{@code map}（默认）：{@link MapClassCache}，基于弱键Map，可遍历，支持按条件清除</li>
+ *     <li>{@code classValue}：{@link ClassValueCache}，基于{@link ClassValue}，值随类释放，但不可遍历；
+ *     每个类首次使用时创建自身的ClassValueMap，内存占用最高，适用于缓存的类数量较少的场景</li>
+ *     <li>{@code compact}：{@link CompactClassCache}，基于开放寻址的弱键Map，每个类不创建Map节点，适用于缓存大量类</li>
+ * </ul>
+ * {@link MapClassCache}的值引用类型由系统属性{@value #VALUES_PROPERTY_NAME}选择：{@code strong}（默认）、{@code weak}、{@code soft}。<br>
+ * 系统属性{@value #STATS_PROPERTY_NAME}为{@code true}时记录统计，通过{@link #create(String)}创建的缓存同时注册为MXBean。<br>
+ * 通过{@link #create(String)}创建的缓存注册到{@link CacheRegistry}，可统一清除和限制容量。
+ *
+ * @param <V> 值类型
+ */
+public interface ClassCache<V> extends ManagedCache {
+
+    /**
+     * 选择缓存实现的系统属性名
+     */
+    String PROPERTY_NAME = "jp.onehr.reflect.classCache";
+
+    /**
+     * 选择值引用类型的系统属性名
+     */
+    String VALUES_PROPERTY_NAME = "jp.onehr.reflect.classCache.values";
+
+    /**
+     * 是否记录统计的系统属性名
+     */
+    String STATS_PROPERTY_NAME = "jp.onehr.reflect.classCache.stats";
+
+    /**
+     * 获取缓存的值，不存在时调用加载函数生成并缓存
+     *
+     * @param clazz  类，不能为{@code null}
+     * @param loader 加载函数，返回{@code null}时不缓存
+     * @return 值
+     */
+    V get(Class<?> clazz, Function<Class<?>, ? extends V> loader);
+
+    /**
+     * 获取缓存的值
+     *
+     * @param clazz 类，不能为{@code null}
+     * @return 值，不存在返回{@code null}
+     */
+    V getIfPresent(Class<?> clazz);
+
+    /**
+     * 移除指定类的缓存
+     *
+     * @param clazz 类，不能为{@code null}
+     */
+    void remove(Class<?> clazz);
+
+    /**
+     * 移除满足条件的类的缓存<br>
+     * 不支持遍历的实现可能清除全部缓存，结果依然正确，只是需要重新加载。
+     *
+     * @param predicate 类过滤器，返回{@code true}的类缓存被清除
+     */
+    void removeIf(Predicate<Class<?>> predicate);
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 获取统计快照，未记录统计时各计数为0
+     *
+     * @return {@link CacheStats}
+     */
+    CacheStats stats();
+
+    @Override
+    default void evictClasses(Predicate<Class<?>> predicate) {
+        removeIf(predicate);
+    }
+
+    @Override
+    default long estimatedSize() {
+        return stats().getEstimatedSize();
+    }
+
+    @Override
+    default long estimatedBytes() {
+        return -1;
+    }
+
+    /**
+     * 根据系统属性{@value #PROPERTY_NAME}创建缓存
+     *
+     * @param <V> 值类型
+     * @return 缓存
+     */
+    static <V> ClassCache<V> create() {
+        return create(null);
+    }
+
+    /**
+     * 根据系统属性{@value #PROPERTY_NAME}创建缓存，并以指定的名称注册到{@link CacheRegistry}，
+     * 记录统计时同时注册MXBean：{@code jp.onehr.reflect:type=Cache,name=缓存名}
+     *
+     * @param name 缓存名，{@code null}表示不注册
+     * @param <V>  值类型
+     * @return 缓存
+     */
+    static <V> ClassCache<V> create(String name) {
+        final boolean recordStats = Boolean.getBoolean(STATS_PROPERTY_NAME);
+        final ClassCache<V> cache;
+        final String impl = System.getProperty(PROPERTY_NAME);
+        if ("classValue".equals(impl)) {
+            cache = new ClassValueCache<>(recordStats);
+        } else if ("compact".equals(impl)) {
+            cache = new CompactClassCache<>(recordStats);
+        } else {
+            final String values = System.getProperty(VALUES_PROPERTY_NAME);
+            if ("soft".equalsIgnoreCase(values)) {
+                cache = new MapClassCache<>(ReferenceEnum.SOFT, recordStats);
+            } else if ("weak".equalsIgnoreCase(values)) {
+                cache = new MapClassCache<>(ReferenceEnum.WEAK, recordStats);
+            } else {
+                cache = new MapClassCache<>(ReferenceEnum.STRONG, recordStats);
+            }
+        }
+        if (null != name) {
+            CacheRegistry.register(name, cache);
+            if (recordStats) {
+                ClassCacheStats.register(name, cache);
+            }
+        }
+        return cache;
+    }
+
+}
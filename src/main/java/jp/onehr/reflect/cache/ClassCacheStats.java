@@ -0,0 +1,137 @@
+package jp.onehr.reflect.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * {@link ClassCache}统计的JMX实现，每次读取属性时获取新的统计快照
+ */
+final class ClassCacheStats implements CacheStatsMXBean {
+
+    /**
+     * JMX注册名的前缀
+     */
+    private static final String OBJECT_NAME_PREFIX = "jp.onehr.reflect:type=Cache,name=";
+    /**
+     * 缓存名 -> 已注册的缓存，用于取消注册时确认MBean仍属于同一个缓存
+     */
+    private static final Map<String, ClassCache<?>> REGISTERED = new ConcurrentHashMap<>();
+
+    private final ClassCache<?> cache;
+
+    /**
+     * 构造
+     *
+     * @param cache 缓存
+     */
+    private ClassCacheStats(ClassCache<?> cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * 将缓存的统计注册到平台MBeanServer，同名的已有注册（如重新加载的类加载器中的缓存）被替换<br>
+     * 注册失败（如安全限制）时忽略，不影响缓存本身的使用。
+     *
+     * @param name  缓存名
+     * @param cache 缓存
+     */
+    static void register(String name, ClassCache<?> cache) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            final ClassCacheStats bean = new ClassCacheStats(cache);
+            try {
+                server.registerMBean(bean, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(bean, objectName);
+            }
+            REGISTERED.put(name, cache);
+        } catch (JMException | SecurityException e) {
+            // JMX不可用时只是无法监控
+        }
+    }
+
+    /**
+     * 从平台MBeanServer取消注册缓存的统计，MBean持有缓存的强引用，不取消注册时缓存及其中的类无法被回收<br>
+     * 同名的MBean已被其它缓存替换时不处理。
+     *
+     * @param name  缓存名
+     * @param cache 缓存
+     */
+    static void unregister(String name, ClassCache<?> cache) {
+        if (false == REGISTERED.remove(name, cache)) {
+            return;
+        }
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException | SecurityException e) {
+            // 已被其它线程取消注册或JMX不可用
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().getMissCount();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return cache.stats().getRequestCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return cache.stats().getHitRate();
+    }
+
+    @Override
+    public long getLoadSuccessCount() {
+        return cache.stats().getLoadSuccessCount();
+    }
+
+    @Override
+    public long getLoadFailureCount() {
+        return cache.stats().getLoadFailureCount();
+    }
+
+    @Override
+    public long getTotalLoadTime() {
+        return cache.stats().getTotalLoadTime();
+    }
+
+    @Override
+    public double getAverageLoadPenalty() {
+        return cache.stats().getAverageLoadPenalty();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().getEvictionCount();
+    }
+
+    @Override
+    public long getEstimatedSize() {
+        return cache.stats().getEstimatedSize();
+    }
+
+    @Override
+    public void clear() {
+        cache.clear();
+    }
+
+}
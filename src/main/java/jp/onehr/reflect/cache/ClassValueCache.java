@@ -0,0 +1,155 @@
+package jp.onehr.reflect.cache;
+
+import jp.onehr.reflect.asserts.Assert;
+import jp.onehr.reflect.map.CacheStats;
+import jp.onehr.reflect.map.StatsCounter;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 基于{@link ClassValue}的类缓存<br>
+ * 值保存在类自身的{@link ClassValue}表中，查找不经过全局哈希表，类被卸载时值随之释放，不需要清除线程。<br>
+ * 查找并不比{@link MapClassCache}快：{@link ClassValue#get(Class)}需要校验表的版本，未命中类上的缓存时还要查找ClassValueMap。
+ * 内存占用较高：JDK为每个首次使用{@link ClassValue}的类创建一个ClassValueMap（基于{@link java.util.WeakHashMap}，
+ * 自带哈希表和缓存数组），加上每个条目的弱引用Entry和槽位对象，每个类约500字节，
+ * 而{@link MapClassCache}和{@link CompactClassCache}约70～90字节（见测试目录中的ClassCacheBenchmark）。<br>
+ * {@link ClassValue}不可遍历，{@link #removeIf(Predicate)}退化为{@link #clear()}；
+ * {@link #clear()}通过替换{@link ClassValue}实例实现，旧实例中的值随类或旧实例一起被回收。<br>
+ * 由于不可遍历，统计中的缓存数量未知（-1），类卸载也不计入清除次数。
+ *
+ * @param <V> 值类型
+ */
+public class ClassValueCache<V> implements ClassCache<V> {
+
+    private volatile ClassValue<Slot<V>> classValue = newClassValue();
+    /**
+     * 统计计数器，{@code null}表示不统计
+     */
+    private final StatsCounter statsCounter;
+
+    /**
+     * 构造，不记录统计
+     */
+    public ClassValueCache() {
+        this(false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param recordStats 是否记录统计
+     */
+    public ClassValueCache(boolean recordStats) {
+        this.statsCounter = recordStats ? new StatsCounter() : null;
+    }
+
+    @Override
+    public V get(Class<?> clazz, Function<Class<?>, ? extends V> loader) {
+        Assert.notNull(clazz);
+        final Slot<V> slot = classValue.get(clazz);
+        V value = slot.value;
+        if (null != value) {
+            if (null != statsCounter) {
+                statsCounter.recordHit();
+            }
+            return value;
+        }
+        if (null != statsCounter) {
+            statsCounter.recordMiss();
+        }
+        slot.lock.lock();
+        try {
+            value = slot.value;
+            if (null == value) {
+                value = load(clazz, loader);
+                slot.value = value;
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+        return value;
+    }
+
+    @Override
+    public V getIfPresent(Class<?> clazz) {
+        Assert.notNull(clazz);
+        return classValue.get(clazz).value;
+    }
+
+    @Override
+    public void remove(Class<?> clazz) {
+        Assert.notNull(clazz);
+        classValue.remove(clazz);
+    }
+
+    @Override
+    public void removeIf(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        clear();
+    }
+
+    @Override
+    public void clear() {
+        classValue = newClassValue();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return null == statsCounter ? new CacheStats(0, 0, 0, 0, 0, 0, -1) : statsCounter.snapshot(-1);
+    }
+
+    /**
+     * 执行加载函数，记录统计时记录加载耗时
+     *
+     * @param clazz  类
+     * @param loader 加载函数
+     * @return 值
+     */
+    private V load(Class<?> clazz, Function<Class<?>, ? extends V> loader) {
+        if (null == statsCounter) {
+            return loader.apply(clazz);
+        }
+        final long start = System.nanoTime();
+        V value = null;
+        try {
+            value = loader.apply(clazz);
+            return value;
+        } finally {
+            final long loadTime = System.nanoTime() - start;
+            if (null == value) {
+                statsCounter.recordLoadFailure(loadTime);
+            } else {
+                statsCounter.recordLoadSuccess(loadTime);
+            }
+        }
+    }
+
+    /**
+     * 创建新的{@link ClassValue}，每个类对应一个空槽位，值在首次获取时加载
+     *
+     * @param <V> 值类型
+     * @return {@link ClassValue}
+     */
+    private static <V> ClassValue<Slot<V>> newClassValue() {
+        return new ClassValue<>() {
+            @Override
+            protected Slot<V> computeValue(Class<?> type) {
+                return new Slot<>();
+            }
+        };
+    }
+
+    /**
+     * 值槽位，加载函数在槽位锁内执行，同一个类只加载一次<br>
+     * 使用{@link ReentrantLock}而不是对象监视器，加载时虚拟线程不会固定在载体线程上
+     *
+     * @param <V> 值类型
+     */
+    private static final class Slot<V> {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile V value;
+    }
+
+}
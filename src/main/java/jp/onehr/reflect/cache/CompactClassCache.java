@@ -0,0 +1,123 @@
+package jp.onehr.reflect.cache;
+
+import jp.onehr.reflect.asserts.Assert;
+import jp.onehr.reflect.map.CacheStats;
+import jp.onehr.reflect.map.CompactWeakConcurrentMap;
+import jp.onehr.reflect.map.StatsCounter;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 基于{@link CompactWeakConcurrentMap}的类缓存，适用于缓存的类数量很大的场景<br>
+ * 每个类只占用哈希表中的一个槽位和一个弱引用，不创建Map节点对象，读取无锁、不分配对象。<br>
+ * 加载在Map的锁之外执行，并发加载同一个类时可能加载多次，先写入的值生效。<br>
+ * 值为强引用，不支持容量上限；类卸载不计入清除次数。
+ *
+ * @param <V> 值类型
+ */
+public class CompactClassCache<V> implements ClassCache<V> {
+
+    private final CompactWeakConcurrentMap<Class<?>, V> map = new CompactWeakConcurrentMap<>();
+    /**
+     * 统计计数器，{@code null}表示不统计
+     */
+    private final StatsCounter statsCounter;
+
+    /**
+     * 构造，不记录统计
+     */
+    public CompactClassCache() {
+        this(false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param recordStats 是否记录统计
+     */
+    public CompactClassCache(boolean recordStats) {
+        this.statsCounter = recordStats ? new StatsCounter() : null;
+    }
+
+    @Override
+    public V get(Class<?> clazz, Function<Class<?>, ? extends V> loader) {
+        Assert.notNull(clazz);
+        final V value = map.get(clazz);
+        if (null != value) {
+            if (null != statsCounter) {
+                statsCounter.recordHit();
+            }
+            return value;
+        }
+        if (null != statsCounter) {
+            statsCounter.recordMiss();
+        }
+        return map.computeIfAbsent(clazz, key -> load(key, loader));
+    }
+
+    @Override
+    public V getIfPresent(Class<?> clazz) {
+        Assert.notNull(clazz);
+        return map.get(clazz);
+    }
+
+    @Override
+    public void remove(Class<?> clazz) {
+        Assert.notNull(clazz);
+        map.remove(clazz);
+    }
+
+    @Override
+    public void removeIf(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        map.keySet().removeIf(predicate);
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public CacheStats stats() {
+        final long size = map.size();
+        return null == statsCounter ? new CacheStats(0, 0, 0, 0, 0, 0, size) : statsCounter.snapshot(size);
+    }
+
+    @Override
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (V value : map.values()) {
+            bytes += CacheRegistry.estimateBytes(value);
+        }
+        return bytes;
+    }
+
+    /**
+     * 执行加载函数，记录统计时记录加载耗时
+     *
+     * @param clazz  类
+     * @param loader 加载函数
+     * @return 值
+     */
+    private V load(Class<?> clazz, Function<Class<?>, ? extends V> loader) {
+        if (null == statsCounter) {
+            return loader.apply(clazz);
+        }
+        final long start = System.nanoTime();
+        V value = null;
+        try {
+            value = loader.apply(clazz);
+            return value;
+        } finally {
+            final long loadTime = System.nanoTime() - start;
+            if (null == value) {
+                statsCounter.recordLoadFailure(loadTime);
+            } else {
+                statsCounter.recordLoadSuccess(loadTime);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package jp.onehr.reflect.cache;
+
+import java.util.function.Predicate;
+
+/**
+ * 可由{@link CacheRegistry}统一管理的缓存
+ */
+public interface ManagedCache {
+
+    /**
+     * 清空缓存
+     */
+    void clear();
+
+    /**
+     * 清除满足条件的类相关的缓存，不以类为键的缓存可忽略
+     *
+     * @param predicate 类过滤器，返回{@code true}的类缓存被清除
+     */
+    void evictClasses(Predicate<Class<?>> predicate);
+
+    /**
+     * 清除属于指定{@link ClassLoader}（包括其子加载器）的缓存，默认清除由其加载的类的缓存
+     *
+     * @param classLoader {@link ClassLoader}
+     */
+    default void evictClassLoader(ClassLoader classLoader) {
+        evictClasses(clazz -> CacheRegistry.belongsTo(clazz, classLoader));
+    }
+
+    /**
+     * 获取估算的缓存数量
+     *
+     * @return 缓存数量，未知时为-1
+     */
+    long estimatedSize();
+
+    /**
+     * 获取估算的内存占用
+     *
+     * @return 字节数，未知时为-1
+     */
+    long estimatedBytes();
+
+    /**
+     * 是否支持{@link #setMaximum(long, boolean)}设置容量上限
+     *
+     * @return 是否支持
+     */
+    default boolean isBoundable() {
+        return false;
+    }
+
+    /**
+     * 设置容量上限，超出时驱逐，不支持时忽略
+     *
+     * @param maximum 上限，0表示不限制
+     * @param bytes   {@code true}表示上限为估算的字节数，{@code false}表示上限为缓存数量
+     */
+    default void setMaximum(long maximum, boolean bytes) {
+    }
+
+}
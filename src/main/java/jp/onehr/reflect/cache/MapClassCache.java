@@ -0,0 +1,107 @@
+package jp.onehr.reflect.cache;
+
+import jp.onehr.reflect.asserts.Assert;
+import jp.onehr.reflect.enums.ReferenceEnum;
+import jp.onehr.reflect.map.CacheStats;
+import jp.onehr.reflect.map.WeakIdentityConcurrentMap;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 基于{@link WeakIdentityConcurrentMap}的类缓存，类被回收后对应的缓存在后续操作中清除<br>
+ * 值可使用软引用，内存不足时由GC回收，再次访问时重新加载。<br>
+ * 加载在Map的锁之外执行，同一个类同时只加载一次。
+ *
+ * @param <V> 值类型
+ */
+public class MapClassCache<V> implements ClassCache<V> {
+
+    private final WeakIdentityConcurrentMap<Class<?>, V> map;
+
+    /**
+     * 构造，值为强引用
+     */
+    public MapClassCache() {
+        this(ReferenceEnum.STRONG);
+    }
+
+    /**
+     * 构造
+     *
+     * @param valueType 值的引用类型，支持{@link ReferenceEnum#STRONG}、{@link ReferenceEnum#WEAK}、{@link ReferenceEnum#SOFT}
+     */
+    public MapClassCache(ReferenceEnum valueType) {
+        this(valueType, false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param valueType   值的引用类型，支持{@link ReferenceEnum#STRONG}、{@link ReferenceEnum#WEAK}、{@link ReferenceEnum#SOFT}
+     * @param recordStats 是否记录统计
+     */
+    public MapClassCache(ReferenceEnum valueType, boolean recordStats) {
+        this.map = new WeakIdentityConcurrentMap<>(valueType);
+        if (recordStats) {
+            this.map.recordStats();
+        }
+    }
+
+    @Override
+    public V get(Class<?> clazz, Function<Class<?>, ? extends V> loader) {
+        Assert.notNull(clazz);
+        return map.load(clazz, loader);
+    }
+
+    @Override
+    public V getIfPresent(Class<?> clazz) {
+        return map.get(clazz);
+    }
+
+    @Override
+    public void remove(Class<?> clazz) {
+        map.remove(clazz);
+    }
+
+    @Override
+    public void removeIf(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        map.forEach((clazz, value) -> {
+            if (null != clazz && predicate.test(clazz)) {
+                map.remove(clazz);
+            }
+        });
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return map.stats();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        final Long bytes = map.reduce(Long.MAX_VALUE, (clazz, value) -> (long) CacheRegistry.estimateBytes(value), Long::sum);
+        return null == bytes ? 0 : bytes;
+    }
+
+    @Override
+    public boolean isBoundable() {
+        return true;
+    }
+
+    @Override
+    public void setMaximum(long maximum, boolean bytes) {
+        if (0 == maximum) {
+            map.clearMaximumWeight();
+        } else {
+            map.setMaximumWeight(maximum, bytes ? (clazz, value) -> CacheRegistry.estimateBytes(value) : null);
+        }
+    }
+
+}
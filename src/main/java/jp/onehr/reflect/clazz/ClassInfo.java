@@ -0,0 +1,149 @@
+package jp.onehr.reflect.clazz;
+
+import jp.onehr.reflect.text.CharPool;
+import jp.onehr.reflect.text.StringUtils;
+
+import java.net.URL;
+import java.security.CodeSource;
+import java.security.ProtectionDomain;
+
+/**
+ * 类的名称和位置信息<br>
+ * 类名、简单类名、短格式类名、包名、包路径、class所在位置和是否为JDK类，在首次访问时计算一次，
+ * 通过{@link ClassValue}挂在类自身上，之后直接返回，适用于日志等每次调用都需要类名信息的场景。<br>
+ * 此对象不持有类的引用，不影响类的卸载。
+ * <pre>
+ * {@code ClassInfo.of(clazz).getShortName()}
+ * </pre>
+ */
+public final class ClassInfo {
+
+    private static final ClassValue<ClassInfo> INFOS = new ClassValue<>() {
+        @Override
+        protected ClassInfo computeValue(Class<?> type) {
+            return new ClassInfo(type);
+        }
+    };
+
+    private final String name;
+    private final String simpleName;
+    private final String shortName;
+    private final String packageName;
+    private final String packagePath;
+    private final URL location;
+    private final boolean jdkClass;
+
+    /**
+     * 构造
+     *
+     * @param clazz 类
+     */
+    private ClassInfo(Class<?> clazz) {
+        this.name = clazz.getName();
+        this.simpleName = clazz.getSimpleName();
+        this.shortName = ClassUtils.getShortClassName(this.name);
+        final int packageEndIndex = this.name.lastIndexOf(CharPool.DOT);
+        this.packageName = packageEndIndex < 0 ? StringUtils.EMPTY : this.name.substring(0, packageEndIndex);
+        this.packagePath = this.packageName.replace(CharPool.DOT, CharPool.SLASH);
+        this.location = locationOf(clazz);
+        this.jdkClass = ClassTraits.of(clazz).isJdkClass();
+    }
+
+    /**
+     * 获取类的名称和位置信息，首次调用时计算
+     *
+     * @param clazz 类，非{@code null}
+     * @return 类信息
+     */
+    public static ClassInfo of(Class<?> clazz) {
+        return INFOS.get(clazz);
+    }
+
+    /**
+     * 获取类名，同{@link Class#getName()}
+     *
+     * @return 类名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取简单类名，同{@link Class#getSimpleName()}
+     *
+     * @return 简单类名
+     */
+    public String getSimpleName() {
+        return simpleName;
+    }
+
+    /**
+     * 获取短格式类名，例如：cn.hutool.core.util.StrUtil -》c.h.c.u.StrUtil
+     *
+     * @return 短格式类名
+     */
+    public String getShortName() {
+        return shortName;
+    }
+
+    /**
+     * 获取包名，没有包时返回空字符串
+     *
+     * @return 包名
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * 获取包路径，例如：com/xiaoleilu/hutool/util
+     *
+     * @return 包路径
+     */
+    public String getPackagePath() {
+        return packagePath;
+    }
+
+    /**
+     * 获取class所在位置，jar包中的类返回jar的位置
+     *
+     * @return 位置，没有代码来源（例如JDK中的类）时返回{@code null}
+     */
+    public URL getLocation() {
+        return location;
+    }
+
+    /**
+     * 获取class所在位置的路径
+     *
+     * @return 路径，没有代码来源时返回{@code null}
+     */
+    public String getLocationPath() {
+        return null == location ? null : location.getPath();
+    }
+
+    /**
+     * 是否为JDK中定义的类或接口，规则见{@link ClassUtils#isJdkClass(Class)}
+     *
+     * @return 是否为JDK中定义的类或接口
+     */
+    public boolean isJdkClass() {
+        return jdkClass;
+    }
+
+    /**
+     * 获取类的代码来源位置
+     *
+     * @param clazz 类
+     * @return 位置，没有代码来源时返回{@code null}
+     */
+    private static URL locationOf(Class<?> clazz) {
+        final ProtectionDomain domain = clazz.getProtectionDomain();
+        if (null == domain) {
+            return null;
+        }
+        final CodeSource codeSource = domain.getCodeSource();
+        return null == codeSource ? null : codeSource.getLocation();
+    }
+
+}
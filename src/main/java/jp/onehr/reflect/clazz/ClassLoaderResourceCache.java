@@ -0,0 +1,304 @@
+package jp.onehr.reflect.clazz;
+
+import jp.onehr.reflect.jar.MappedJarFile;
+import jp.onehr.reflect.text.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个{@link ClassLoader}的资源查找缓存<br>
+ * 缓存资源名对应的URL，未找到的资源同样缓存（负缓存），避免每次都遍历classpath中的所有jar。<br>
+ * 此对象作为以{@link ClassLoader}为弱键的Map的值保存，因此不持有{@link ClassLoader}，由调用方在查找时传入，
+ * 否则值会使弱键始终可达，{@link ClassLoader}无法被回收。
+ */
+final class ClassLoaderResourceCache {
+
+    /**
+     * 资源不存在的标记
+     */
+    private static final Object NONE = new Object();
+    /**
+     * JDK内置的应用类加载器类名，只有此加载器的查找顺序与手动遍历java.class.path一致
+     */
+    private static final String APP_CLASS_LOADER = "jdk.internal.loader.ClassLoaders$AppClassLoader";
+
+    private final Map<String, Object> urls = new ConcurrentHashMap<>();
+    private final Map<String, List<URL>> urlLists = new ConcurrentHashMap<>();
+
+    /**
+     * 获取资源URL
+     *
+     * @param classLoader 此缓存对应的{@link ClassLoader}
+     * @param name        资源名
+     * @return URL，不存在返回{@code null}
+     */
+    URL getResource(ClassLoader classLoader, String name) {
+        Object value = urls.get(name);
+        if (null == value) {
+            final URL url = classLoader.getResource(name);
+            value = null == url ? NONE : url;
+            urls.putIfAbsent(name, value);
+        }
+        return NONE == value ? null : (URL) value;
+    }
+
+    /**
+     * 获取所有同名资源的URL
+     *
+     * @param classLoader 此缓存对应的{@link ClassLoader}
+     * @param name        资源名
+     * @return URL列表，只读，不存在返回空列表
+     */
+    List<URL> getResources(ClassLoader classLoader, String name) {
+        List<URL> list = urlLists.get(name);
+        if (null == list) {
+            try {
+                list = Collections.unmodifiableList(Collections.list(classLoader.getResources(name)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            urlLists.putIfAbsent(name, list);
+        }
+        return list;
+    }
+
+    /**
+     * 获取缓存的资源数量
+     *
+     * @return 资源数量
+     */
+    int size() {
+        int size = urls.size();
+        for (List<URL> list : urlLists.values()) {
+            size += list.size();
+        }
+        return size;
+    }
+
+    /**
+     * 批量获取资源URL<br>
+     * 对于JDK内置的系统类加载器，未缓存的资源先交给父加载器查找，剩余的资源在java.class.path上只遍历一次，
+     * 每个目录或jar只打开一次；遍历中未找到的资源（例如在jar清单的Class-Path或agent追加的jar中）再交给类加载器查找，
+     * 只有类加载器确认不存在的资源才写入负缓存。其它类加载器逐个查找。
+     *
+     * @param classLoader 此缓存对应的{@link ClassLoader}
+     * @param names       资源名
+     * @return 资源名和URL的对应Map，保持传入顺序，不存在的资源值为{@code null}
+     */
+    Map<String, URL> getResources(ClassLoader classLoader, Collection<String> names) {
+        final Map<String, URL> result = new LinkedHashMap<>(names.size() * 4 / 3 + 1);
+        final Set<String> pending = new LinkedHashSet<>();
+        for (String name : names) {
+            final Object value = urls.get(name);
+            if (null != value) {
+                result.put(name, NONE == value ? null : (URL) value);
+            } else {
+                result.put(name, null);
+                pending.add(name);
+            }
+        }
+        if (pending.isEmpty()) {
+            return result;
+        }
+
+        final Map<String, URL> found;
+        if (isAppClassLoader(classLoader) && false == pending.contains(StringUtils.EMPTY)) {
+            found = findInClassPath(classLoader, pending);
+        } else {
+            found = new HashMap<>();
+        }
+        for (String name : pending) {
+            URL url = found.get(name);
+            if (null == url) {
+                // 遍历未覆盖的位置以类加载器的结果为准
+                url = classLoader.getResource(name);
+            }
+            urls.putIfAbsent(name, null == url ? NONE : url);
+            result.put(name, url);
+        }
+        return result;
+    }
+
+    /**
+     * 是否为JDK内置的应用类加载器，通过java.system.class.loader自定义的系统类加载器查找顺序未知，不手动遍历
+     *
+     * @param classLoader {@link ClassLoader}
+     * @return 是否为JDK内置的应用类加载器
+     */
+    private static boolean isAppClassLoader(ClassLoader classLoader) {
+        return classLoader == ClassLoader.getSystemClassLoader()
+                && APP_CLASS_LOADER.equals(classLoader.getClass().getName());
+    }
+
+    /**
+     * 按类加载器的委托顺序查找：先查找父加载器，再按顺序遍历java.class.path
+     *
+     * @param classLoader 系统类加载器
+     * @param names       资源名
+     * @return 找到的资源
+     */
+    private static Map<String, URL> findInClassPath(ClassLoader classLoader, Set<String> names) {
+        final Map<String, URL> found = new HashMap<>();
+        final Set<String> remaining = new LinkedHashSet<>(names);
+        final ClassLoader parent = classLoader.getParent();
+        if (null != parent) {
+            final Iterator<String> it = remaining.iterator();
+            while (it.hasNext()) {
+                final String name = it.next();
+                final URL url = parent.getResource(name);
+                if (null != url) {
+                    found.put(name, url);
+                    it.remove();
+                }
+            }
+        }
+
+        for (String path : ClasspathUtils.getJavaClassPaths()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            if (StringUtils.isBlank(path)) {
+                continue;
+            }
+            final File entry = new File(path);
+            if (entry.isDirectory()) {
+                findInDir(entry, remaining, found);
+            } else if (entry.isFile() && false == findInJar(entry, remaining, found)) {
+                // 无法读取的jar，类加载器可能跳过也可能能够读取，其后的查找顺序无法确定，剩余资源交给类加载器
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 在classpath目录中查找资源
+     *
+     * @param dir       目录
+     * @param remaining 待查找的资源，找到的会被移除
+     * @param found     找到的资源
+     */
+    private static void findInDir(File dir, Set<String> remaining, Map<String, URL> found) {
+        final Iterator<String> it = remaining.iterator();
+        while (it.hasNext()) {
+            final String name = it.next();
+            if (false == isPlainName(name)) {
+                // 可能跳出classpath目录的资源名交给类加载器处理
+                continue;
+            }
+            final File file = new File(dir, name);
+            if (file.exists()) {
+                try {
+                    found.put(name, file.toURI().toURL());
+                } catch (MalformedURLException e) {
+                    throw new IllegalArgumentException(e);
+                }
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 在classpath的jar中查找资源
+     *
+     * @param jar       jar文件
+     * @param remaining 待查找的资源，找到的会被移除
+     * @param found     找到的资源
+     * @return 是否成功读取jar，非zip文件、文件截断或损坏等无法读取时返回{@code false}
+     */
+    private static boolean findInJar(File jar, Set<String> remaining, Map<String, URL> found) {
+        final MappedJarFile mappedJarFile;
+        try {
+            mappedJarFile = MappedJarFile.open(jar);
+        } catch (UncheckedIOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            return false;
+        }
+        try (MappedJarFile jarFile = mappedJarFile) {
+            final String base = "jar:" + jar.toURI() + "!/";
+            final Iterator<String> it = remaining.iterator();
+            while (it.hasNext()) {
+                final String name = it.next();
+                if (jarFile.contains(name)) {
+                    final URL url;
+                    try {
+                        url = URI.create(base + encodePath(name)).toURL();
+                    } catch (IllegalArgumentException | MalformedURLException e) {
+                        // 资源名无法转换为URL，交给类加载器处理
+                        continue;
+                    }
+                    found.put(name, url);
+                    it.remove();
+                }
+            }
+        } catch (IOException e) {
+            // 关闭失败不影响已读取的结果，忽略
+        }
+        return true;
+    }
+
+    /**
+     * 对jar中的条目名进行百分号编码，与JDK类加载器生成的URL一致（小写十六进制）<br>
+     * 各路径段中的{@code #}、{@code ?}、{@code %}、空格等字符以及非ASCII字符按UTF-8编码，{@code /}保留
+     *
+     * @param name 条目名
+     * @return 编码后的路径
+     */
+    private static String encodePath(String name) {
+        StringBuilder builder = null;
+        final int length = name.length();
+        for (int i = 0; i < length; i++) {
+            if (false == isPathChar(name.charAt(i))) {
+                builder = new StringBuilder(length + 16).append(name, 0, i);
+                for (byte b : name.substring(i).getBytes(StandardCharsets.UTF_8)) {
+                    if (b >= 0 && isPathChar((char) b)) {
+                        builder.append((char) b);
+                    } else {
+                        builder.append('%')
+                                .append(Character.forDigit((b >> 4) & 0xF, 16))
+                                .append(Character.forDigit(b & 0xF, 16));
+                    }
+                }
+                break;
+            }
+        }
+        return null == builder ? name : builder.toString();
+    }
+
+    /**
+     * 是否为URL路径中无需编码的字符
+     *
+     * @param c 字符
+     * @return 是否无需编码
+     */
+    private static boolean isPathChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || "-_.!~*'()@&+$,/".indexOf(c) >= 0;
+    }
+
+    /**
+     * 资源名是否为普通的相对路径，不以/开头且不包含..路径段
+     *
+     * @param name 资源名
+     * @return 是否为普通的相对路径
+     */
+    private static boolean isPlainName(String name) {
+        if (name.startsWith("/") || name.startsWith("\\")) {
+            return false;
+        }
+        for (String segment : name.split("[/\\\\]")) {
+            if ("..".equals(segment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
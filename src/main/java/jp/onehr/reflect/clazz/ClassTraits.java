@@ -0,0 +1,319 @@
+package jp.onehr.reflect.clazz;
+
+import jp.onehr.reflect.enums.BasicTypeEnum;
+
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 类的类型特征<br>
+ * 将简单值类型、基本类型、包装类型、枚举、数组、JDK类、抽象类、Record等判断结果计算一次后保存为位集，
+ * 通过{@link ClassValue}挂在类自身上，之后的判断只需一次位运算，不再重复调用{@link Class#isAssignableFrom(Class)}等方法。<br>
+ * 此对象不持有类的引用，不影响类的卸载。
+ * <pre>
+ * {@code ClassTraits.of(clazz).isSimpleValueType()}
+ * </pre>
+ */
+public final class ClassTraits {
+
+    private static final int PRIMITIVE = 1;
+    private static final int WRAPPER = 1 << 1;
+    private static final int SIMPLE_VALUE = 1 << 2;
+    private static final int SIMPLE_VALUE_ARRAY = 1 << 3;
+    private static final int ENUM = 1 << 4;
+    private static final int ARRAY = 1 << 5;
+    private static final int JDK = 1 << 6;
+    private static final int ABSTRACT = 1 << 7;
+    private static final int INTERFACE = 1 << 8;
+    private static final int RECORD = 1 << 9;
+    private static final int NORMAL = 1 << 10;
+    /**
+     * 基本类型种类所在的位，0表示非基本类型，原始类型和对应的包装类型种类相同
+     */
+    private static final int KIND_SHIFT = 16;
+
+    /**
+     * 按种类排列的原始类型，下标为种类-1
+     */
+    private static final Class<?>[] PRIMITIVES = {
+            boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class};
+    /**
+     * 按种类排列的包装类型，下标为种类-1
+     */
+    private static final Class<?>[] WRAPPERS = {
+            Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class, Float.class, Double.class};
+
+    private static final ClassValue<ClassTraits> TRAITS = new ClassValue<>() {
+        @Override
+        protected ClassTraits computeValue(Class<?> type) {
+            return new ClassTraits(compute(type));
+        }
+    };
+
+    private final int flags;
+
+    /**
+     * 构造
+     *
+     * @param flags 特征位集
+     */
+    private ClassTraits(int flags) {
+        this.flags = flags;
+    }
+
+    /**
+     * 获取类的类型特征，首次调用时计算
+     *
+     * @param clazz 类，非{@code null}
+     * @return 类型特征
+     */
+    public static ClassTraits of(Class<?> clazz) {
+        return TRAITS.get(clazz);
+    }
+
+    /**
+     * 是否为原始类型
+     *
+     * @return 是否为原始类型
+     */
+    public boolean isPrimitive() {
+        return has(PRIMITIVE);
+    }
+
+    /**
+     * 是否为包装类型
+     *
+     * @return 是否为包装类型
+     */
+    public boolean isPrimitiveWrapper() {
+        return has(WRAPPER);
+    }
+
+    /**
+     * 是否为基本类型（包括包装类和原始类）
+     *
+     * @return 是否为基本类型
+     */
+    public boolean isBasicType() {
+        return 0 != (flags & (PRIMITIVE | WRAPPER));
+    }
+
+    /**
+     * 是否为简单值类型，规则见{@link ClassUtils#isSimpleValueType(Class)}
+     *
+     * @return 是否为简单值类型
+     */
+    public boolean isSimpleValueType() {
+        return has(SIMPLE_VALUE);
+    }
+
+    /**
+     * 是否简单值类型或简单值类型的数组
+     *
+     * @return 是否简单值类型或简单值类型的数组
+     */
+    public boolean isSimpleTypeOrArray() {
+        return 0 != (flags & (SIMPLE_VALUE | SIMPLE_VALUE_ARRAY));
+    }
+
+    /**
+     * 是否为枚举类型
+     *
+     * @return 是否为枚举类型
+     */
+    public boolean isEnum() {
+        return has(ENUM);
+    }
+
+    /**
+     * 是否为数组
+     *
+     * @return 是否为数组
+     */
+    public boolean isArray() {
+        return has(ARRAY);
+    }
+
+    /**
+     * 是否为JDK中定义的类或接口，规则见{@link ClassUtils#isJdkClass(Class)}
+     *
+     * @return 是否为JDK中定义的类或接口
+     */
+    public boolean isJdkClass() {
+        return has(JDK);
+    }
+
+    /**
+     * 是否为抽象类（包括接口）
+     *
+     * @return 是否为抽象类
+     */
+    public boolean isAbstract() {
+        return has(ABSTRACT);
+    }
+
+    /**
+     * 是否为接口
+     *
+     * @return 是否为接口
+     */
+    public boolean isInterface() {
+        return has(INTERFACE);
+    }
+
+    /**
+     * 是否为抽象类或接口
+     *
+     * @return 是否为抽象类或接口
+     */
+    public boolean isAbstractOrInterface() {
+        return 0 != (flags & (ABSTRACT | INTERFACE));
+    }
+
+    /**
+     * 是否为Record
+     *
+     * @return 是否为Record
+     */
+    public boolean isRecord() {
+        return has(RECORD);
+    }
+
+    /**
+     * 是否为标准的类，规则见{@link ClassUtils#isNormalClass(Class)}
+     *
+     * @return 是否为标准类
+     */
+    public boolean isNormalClass() {
+        return has(NORMAL);
+    }
+
+    /**
+     * 基本类型的种类，原始类型和对应的包装类型种类相同，例如int和Integer
+     *
+     * @return 种类，1~8，非基本类型返回0
+     */
+    int basicKind() {
+        return flags >>> KIND_SHIFT;
+    }
+
+    /**
+     * 获取种类对应的包装类型
+     *
+     * @param kind 种类，1~8
+     * @return 包装类型
+     */
+    static Class<?> wrapperOf(int kind) {
+        return WRAPPERS[kind - 1];
+    }
+
+    /**
+     * 是否包含指定特征
+     *
+     * @param flag 特征位
+     * @return 是否包含
+     */
+    private boolean has(int flag) {
+        return 0 != (flags & flag);
+    }
+
+    /**
+     * 计算类的特征位集
+     *
+     * @param clazz 类
+     * @return 特征位集
+     */
+    private static int compute(Class<?> clazz) {
+        final int modifiers = clazz.getModifiers();
+        int flags = 0;
+        if (clazz.isPrimitive()) {
+            flags |= PRIMITIVE;
+        }
+        if (BasicTypeEnum.WRAPPER_PRIMITIVE_MAP.containsKey(clazz)) {
+            flags |= WRAPPER;
+        }
+        for (int i = 0; i < PRIMITIVES.length; i++) {
+            if (PRIMITIVES[i] == clazz || WRAPPERS[i] == clazz) {
+                flags |= (i + 1) << KIND_SHIFT;
+                break;
+            }
+        }
+        if (isSimpleValue(clazz)) {
+            flags |= SIMPLE_VALUE;
+        }
+        if (clazz.isArray()) {
+            flags |= ARRAY;
+            if (of(clazz.getComponentType()).isSimpleValueType()) {
+                flags |= SIMPLE_VALUE_ARRAY;
+            }
+        }
+        if (clazz.isEnum()) {
+            flags |= ENUM;
+        }
+        if (isJdk(clazz)) {
+            flags |= JDK;
+        }
+        if (Modifier.isAbstract(modifiers)) {
+            flags |= ABSTRACT;
+        }
+        if (clazz.isInterface()) {
+            flags |= INTERFACE;
+        }
+        if (clazz.isRecord()) {
+            flags |= RECORD;
+        }
+        if (false == clazz.isInterface()
+                && false == Modifier.isAbstract(modifiers)
+                && false == clazz.isEnum()
+                && false == clazz.isArray()
+                && false == clazz.isAnnotation()
+                && false == clazz.isSynthetic()
+                && false == clazz.isPrimitive()) {
+            flags |= NORMAL;
+        }
+        return flags;
+    }
+
+    /**
+     * 是否为简单值类型
+     *
+     * @param clazz 类
+     * @return 是否为简单值类型
+     */
+    private static boolean isSimpleValue(Class<?> clazz) {
+        return clazz.isPrimitive() //
+                || BasicTypeEnum.WRAPPER_PRIMITIVE_MAP.containsKey(clazz) //
+                || clazz.isEnum() //
+                || CharSequence.class.isAssignableFrom(clazz) //
+                || Number.class.isAssignableFrom(clazz) //
+                || Date.class.isAssignableFrom(clazz) //
+                || clazz.equals(URI.class) //
+                || clazz.equals(URL.class) //
+                || clazz.equals(Locale.class) //
+                || clazz.equals(Class.class)//
+                // jdk8 date object
+                || TemporalAccessor.class.isAssignableFrom(clazz); //
+    }
+
+    /**
+     * 是否为JDK中定义的类或接口
+     *
+     * @param clazz 类
+     * @return 是否为JDK中定义的类或接口
+     */
+    private static boolean isJdk(Class<?> clazz) {
+        final Package objectPackage = clazz.getPackage();
+        if (null == objectPackage) {
+            return false;
+        }
+        final String objectPackageName = objectPackage.getName();
+        return objectPackageName.startsWith("java.") //
+                || objectPackageName.startsWith("javax.") //
+                || clazz.getClassLoader() == null;
+    }
+
+}
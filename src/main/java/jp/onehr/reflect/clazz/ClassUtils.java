@@ -3,20 +3,18 @@ package jp.onehr.reflect.clazz;
 import jp.onehr.reflect.asserts.Assert;
 import jp.onehr.reflect.bean.NullWrapperBean;
 import jp.onehr.reflect.text.StringUtils;
+import jp.onehr.reflect.type.TypeUtils;
 
 import java.lang.reflect.Modifier;
-import java.net.URI;
-import java.time.temporal.TemporalAccessor;
-import java.util.List;
-import java.util.Locale;
-import java.util.regex.Pattern;
+import java.lang.reflect.Type;
+import java.net.URL;
 
 /**
  * 类工具类 <br>
  */
 public class ClassUtils {
 
-    private static final char DOT = '0';
+    private static final char DOT = '.';
 
     /**
      * {@code null}安全的获取对象类型
@@ -98,23 +96,37 @@ public class ClassUtils {
      * @return 短格式类名
      */
     public static String getShortClassName(String className) {
-        final List<String> packages = Pattern.compile("\\.")
-                .splitAsStream(className)
-                .toList();
-        if (packages.size() < 2) {
+        final int lastDot = className.lastIndexOf(DOT);
+        if (lastDot < 1 || lastDot == className.length() - 1) {
             return className;
         }
 
-        final int size = packages.size();
-        final StringBuilder result = new StringBuilder();
-        result.append(packages.getFirst().charAt(0));
-        for (int i = 1; i < size - 1; i++) {
-            result.append(DOT).append(packages.get(i).charAt(0));
+        final StringBuilder result = new StringBuilder(className.length());
+        result.append(className.charAt(0));
+        for (int i = 1; i < lastDot; i++) {
+            if (DOT == className.charAt(i)) {
+                result.append(DOT).append(className.charAt(i + 1));
+            }
         }
-        result.append(DOT).append(packages.get(size - 1));
+        result.append(className, lastDot, className.length());
         return result.toString();
     }
 
+    /**
+     * 获取类名的短格式如：<br>
+     * cn.hutool.core.util.StrUtil -》c.h.c.u.StrUtil<br>
+     * 结果按类缓存，重复调用不再计算
+     *
+     * @param clazz 类
+     * @return 短格式类名，类为{@code null}时返回{@code null}
+     */
+    public static String getShortClassName(Class<?> clazz) {
+        if (null == clazz) {
+            return null;
+        }
+        return ClassInfo.of(clazz).getShortName();
+    }
+
     /**
      * 获得对象数组的类数组
      *
@@ -169,7 +181,7 @@ public class ClassUtils {
         if (null == clazz) {
             return false;
         }
-        return BasicType.WRAPPER_PRIMITIVE_MAP.containsKey(clazz);
+        return ClassTraits.of(clazz).isPrimitiveWrapper();
     }
 
     /**
@@ -182,7 +194,7 @@ public class ClassUtils {
         if (null == clazz) {
             return false;
         }
-        return (clazz.isPrimitive() || isPrimitiveWrapper(clazz));
+        return ClassTraits.of(clazz).isBasicType();
     }
 
     /**
@@ -196,7 +208,7 @@ public class ClassUtils {
         if (null == clazz) {
             return false;
         }
-        return isSimpleValueType(clazz) || (clazz.isArray() && isSimpleValueType(clazz.getComponentType()));
+        return ClassTraits.of(clazz).isSimpleTypeOrArray();
     }
 
     /**
@@ -217,17 +229,7 @@ public class ClassUtils {
      * @return 是否为简单值类型
      */
     public static boolean isSimpleValueType(Class<?> clazz) {
-        return isBasicType(clazz) //
-                || clazz.isEnum() //
-                || CharSequence.class.isAssignableFrom(clazz) //
-                || Number.class.isAssignableFrom(clazz) //
-                || Date.class.isAssignableFrom(clazz) //
-                || clazz.equals(URI.class) //
-                || clazz.equals(URL.class) //
-                || clazz.equals(Locale.class) //
-                || clazz.equals(Class.class)//
-                // jdk8 date object
-                || TemporalAccessor.class.isAssignableFrom(clazz); //
+        return ClassTraits.of(clazz).isSimpleValueType();
     }
 
     /**
@@ -246,20 +248,23 @@ public class ClassUtils {
             return false;
         }
 
-        // 对象类型
-        if (targetType.isAssignableFrom(sourceType)) {
+        // 对象类型，isAssignableFrom为JIT内联方法，不做缓存
+        if (targetType == sourceType || targetType.isAssignableFrom(sourceType)) {
             return true;
         }
 
-        // 基本类型
+        // 基本类型，按种类比较，不再查找Map
+        final ClassTraits sourceTraits = ClassTraits.of(sourceType);
+        final int sourceKind = sourceTraits.basicKind();
+        if (0 == sourceKind) {
+            return false;
+        }
         if (targetType.isPrimitive()) {
             // 原始类型
-            Class<?> resolvedPrimitive = BasicType.WRAPPER_PRIMITIVE_MAP.get(sourceType);
-            return targetType.equals(resolvedPrimitive);
+            return sourceTraits.isPrimitiveWrapper() && ClassTraits.of(targetType).basicKind() == sourceKind;
         } else {
             // 包装类型
-            Class<?> resolvedWrapper = BasicType.PRIMITIVE_WRAPPER_MAP.get(sourceType);
-            return resolvedWrapper != null && targetType.isAssignableFrom(resolvedWrapper);
+            return sourceTraits.isPrimitive() && targetType.isAssignableFrom(ClassTraits.wrapperOf(sourceKind));
         }
     }
 
@@ -338,7 +343,7 @@ public class ClassUtils {
      * @return 是否为抽象类
      */
     public static boolean isAbstract(Class<?> clazz) {
-        return Modifier.isAbstract(clazz.getModifiers());
+        return ClassTraits.of(clazz).isAbstract();
     }
 
     /**
@@ -358,14 +363,7 @@ public class ClassUtils {
      * @return 是否为标准类
      */
     public static boolean isNormalClass(Class<?> clazz) {
-        return null != clazz //
-                && false == clazz.isInterface() //
-                && false == isAbstract(clazz) //
-                && false == clazz.isEnum() //
-                && false == clazz.isArray() //
-                && false == clazz.isAnnotation() //
-                && false == clazz.isSynthetic() //
-                && false == clazz.isPrimitive();//
+        return null != clazz && ClassTraits.of(clazz).isNormalClass();
     }
 
     /**
@@ -376,7 +374,17 @@ public class ClassUtils {
      * @since 3.2.0
      */
     public static boolean isEnum(Class<?> clazz) {
-        return null != clazz && clazz.isEnum();
+        return null != clazz && ClassTraits.of(clazz).isEnum();
+    }
+
+    /**
+     * 判断类是否为Record类型
+     *
+     * @param clazz 类
+     * @return 是否为Record类型
+     */
+    public static boolean isRecord(Class<?> clazz) {
+        return null != clazz && ClassTraits.of(clazz).isRecord();
     }
 
     /**
@@ -397,8 +405,8 @@ public class ClassUtils {
      * @return {@link Class}
      */
     public static Class<?> getTypeArgument(Class<?> clazz, int index) {
-        final Type argumentType = TypeUtil.getTypeArgument(clazz, index);
-        return TypeUtil.getClass(argumentType);
+        final Type argumentType = TypeUtils.getTypeArgument(clazz, index);
+        return TypeUtils.getClass(argumentType);
     }
 
     /**
@@ -411,14 +419,9 @@ public class ClassUtils {
      */
     public static String getPackage(Class<?> clazz) {
         if (clazz == null) {
-            return StrUtil.EMPTY;
+            return StringUtils.EMPTY;
         }
-        final String className = clazz.getName();
-        int packageEndIndex = className.lastIndexOf(StrUtil.DOT);
-        if (packageEndIndex == -1) {
-            return StrUtil.EMPTY;
-        }
-        return className.substring(0, packageEndIndex);
+        return ClassInfo.of(clazz).getPackageName();
     }
 
     /**
@@ -430,7 +433,10 @@ public class ClassUtils {
      * @return 包名
      */
     public static String getPackagePath(Class<?> clazz) {
-        return getPackage(clazz).replace(StrUtil.C_DOT, StrUtil.C_SLASH);
+        if (clazz == null) {
+            return StringUtils.EMPTY;
+        }
+        return ClassInfo.of(clazz).getPackagePath();
     }
 
     /**
@@ -516,14 +522,7 @@ public class ClassUtils {
      * @since 4.6.5
      */
     public static boolean isJdkClass(Class<?> clazz) {
-        final Package objectPackage = clazz.getPackage();
-        if (null == objectPackage) {
-            return false;
-        }
-        final String objectPackageName = objectPackage.getName();
-        return objectPackageName.startsWith("java.") //
-                || objectPackageName.startsWith("javax.") //
-                || clazz.getClassLoader() == null;
+        return ClassTraits.of(clazz).isJdkClass();
     }
 
     /**
@@ -539,7 +538,7 @@ public class ClassUtils {
         if (null == clazz) {
             return null;
         }
-        return clazz.getProtectionDomain().getCodeSource().getLocation();
+        return ClassInfo.of(clazz).getLocation();
     }
 
     /**
@@ -552,11 +551,10 @@ public class ClassUtils {
      * @since 5.2.4
      */
     public static String getLocationPath(Class<?> clazz) {
-        final URL location = getLocation(clazz);
-        if (null == location) {
+        if (null == clazz) {
             return null;
         }
-        return location.getPath();
+        return ClassInfo.of(clazz).getLocationPath();
     }
 
     /**
@@ -567,7 +565,7 @@ public class ClassUtils {
      * @since 5.8.2
      */
     public static boolean isAbstractOrInterface(Class<?> clazz) {
-        return isAbstract(clazz) || isInterface(clazz);
+        return ClassTraits.of(clazz).isAbstractOrInterface();
     }
 
     /**
@@ -578,7 +576,7 @@ public class ClassUtils {
      * @since 5.8.2
      */
     public static boolean isInterface(Class<?> clazz) {
-        return clazz.isInterface();
+        return ClassTraits.of(clazz).isInterface();
     }
 
 }
@@ -1,13 +1,25 @@
 package jp.onehr.reflect.clazz;
 
+import jp.onehr.reflect.array.ArrayUtils;
+import jp.onehr.reflect.cache.CacheRegistry;
+import jp.onehr.reflect.map.WeakConcurrentMap;
 import jp.onehr.reflect.text.StringUtils;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.net.URL;
+import java.util.*;
 
 public class ClasspathUtils {
 
+    /**
+     * 资源查找缓存，{@link ClassLoader}被回收时对应的缓存随之清除
+     */
+    private static final WeakConcurrentMap<ClassLoader, ClassLoaderResourceCache> RESOURCE_CACHE = new WeakConcurrentMap<>();
+
+    static {
+        CacheRegistry.register("resources", new ResourceCacheRegistration(RESOURCE_CACHE));
+    }
+
     /**
      * 获得ClassPath，不解码路径中的特殊字符（例如空格和中文）
      *
@@ -103,13 +115,50 @@ public class ClasspathUtils {
      * config/a/db.config
      * spring/xml/test.xml
      * </pre>
+     * <p>
+     * 查找结果（包括资源不存在的情况）按{@link ClassLoader}缓存，{@link ClassLoader}被回收时缓存随之清除。
      *
      * @param resource 资源（相对Classpath的路径）
      * @return 资源URL
-     * @see ResourceUtil#getResource(String)
      */
-    public static URL getResourceURL(String resource) throws IORuntimeException {
-        return ResourceUtil.getResource(resource);
+    public static URL getResourceURL(String resource) {
+        return getResourceURL(resource, null);
+    }
+
+    /**
+     * 获得资源的URL，查找结果（包括资源不存在的情况）按{@link ClassLoader}缓存
+     *
+     * @param resource    资源（相对Classpath的路径）
+     * @param classLoader {@link ClassLoader}，{@code null}则使用{@link #getClassLoader()}获取
+     * @return 资源URL，不存在返回{@code null}
+     */
+    public static URL getResourceURL(String resource, ClassLoader classLoader) {
+        final ClassLoader loader = null == classLoader ? getClassLoader() : classLoader;
+        return getResourceCache(loader).getResource(loader, null == resource ? StringUtils.EMPTY : resource);
+    }
+
+    /**
+     * 批量获得资源的URL<br>
+     * 未缓存的资源一次性查找：使用系统类加载器时，java.class.path中的每个目录或jar只遍历一次，适用于一次查找大量资源的场景。
+     *
+     * @param resources 资源（相对Classpath的路径）
+     * @return 资源和URL的对应Map，保持传入顺序，不存在的资源值为{@code null}
+     */
+    public static Map<String, URL> getResourceURLs(Collection<String> resources) {
+        return getResourceURLs(resources, null);
+    }
+
+    /**
+     * 批量获得资源的URL<br>
+     * 未缓存的资源一次性查找：使用系统类加载器时，java.class.path中的每个目录或jar只遍历一次，适用于一次查找大量资源的场景。
+     *
+     * @param resources   资源（相对Classpath的路径）
+     * @param classLoader {@link ClassLoader}，{@code null}则使用{@link #getClassLoader()}获取
+     * @return 资源和URL的对应Map，保持传入顺序，不存在的资源值为{@code null}
+     */
+    public static Map<String, URL> getResourceURLs(Collection<String> resources, ClassLoader classLoader) {
+        final ClassLoader loader = null == classLoader ? getClassLoader() : classLoader;
+        return getResourceCache(loader).getResources(loader, resources);
     }
 
     /**
@@ -120,13 +169,15 @@ public class ClasspathUtils {
      * config/a
      * spring/xml
      * </pre>
+     * <p>
+     * 查找结果按{@link ClassLoader}缓存，{@link ClassLoader}被回收时缓存随之清除。
      *
      * @param resource 资源路径
-     * @return 资源列表
-     * @see ResourceUtil#getResources(String)
+     * @return 资源列表，只读
      */
     public static List<URL> getResources(String resource) {
-        return ResourceUtil.getResources(resource);
+        final ClassLoader loader = getClassLoader();
+        return getResourceCache(loader).getResources(loader, null == resource ? StringUtils.EMPTY : resource);
     }
 
     /**
@@ -135,10 +186,32 @@ public class ClasspathUtils {
      * @param resource  资源相对路径
      * @param baseClass 基准Class，获得的相对路径相对于此Class所在路径，如果为{@code null}则相对ClassPath
      * @return {@link URL}
-     * @see ResourceUtil#getResource(String, Class)
      */
     public static URL getResourceUrl(String resource, Class<?> baseClass) {
-        return ResourceUtil.getResource(resource, baseClass);
+        if (null == baseClass) {
+            return getResourceURL(resource);
+        }
+        return baseClass.getResource(null == resource ? StringUtils.EMPTY : resource);
+    }
+
+    /**
+     * 清空所有{@link ClassLoader}的资源查找缓存，用于运行期classpath中的资源发生变化的情况
+     */
+    public static void clearResourceCache() {
+        RESOURCE_CACHE.clear();
+    }
+
+    /**
+     * 清除指定{@link ClassLoader}及其子加载器的资源查找缓存，用于应用卸载后立即释放
+     *
+     * @param classLoader {@link ClassLoader}
+     */
+    public static void clearResourceCache(ClassLoader classLoader) {
+        RESOURCE_CACHE.forEach((loader, cache) -> {
+            if (CacheRegistry.belongsTo(loader, classLoader)) {
+                RESOURCE_CACHE.remove(loader);
+            }
+        });
     }
 
     /**
@@ -152,10 +225,10 @@ public class ClasspathUtils {
      * 获取当前线程的{@link ClassLoader}
      *
      * @return 当前线程的class loader
-     * @see ClassLoaderUtil#getClassLoader()
+     * @see ClassLoaderUtils#getContextClassLoader()
      */
     public static ClassLoader getContextClassLoader() {
-        return ClassLoaderUtil.getContextClassLoader();
+        return ClassLoaderUtils.getContextClassLoader();
     }
 
     /**
@@ -164,25 +237,36 @@ public class ClasspathUtils {
      *
      * <pre>
      * 1、获取当前线程的ContextClassLoader
-     * 2、获取{@link ClassLoaderUtil}类对应的ClassLoader
+     * 2、获取{@link ClassLoaderUtils}类对应的ClassLoader
      * 3、获取系统ClassLoader（{@link ClassLoader#getSystemClassLoader()}）
      * </pre>
      *
      * @return 类加载器
      */
     public static ClassLoader getClassLoader() {
-        return ClassLoaderUtil.getClassLoader();
+        return ClassLoaderUtils.getClassLoader();
     }
 
     /**
-     * 比较判断types1和types2两组类，如果types1中所有的类都与types2对应位置的类相同，或者是其父类或接口，则返回{@code true}
+     * 获取指定{@link ClassLoader}的资源查找缓存
+     *
+     * @param classLoader {@link ClassLoader}，非{@code null}
+     * @return 资源查找缓存
+     */
+    private static ClassLoaderResourceCache getResourceCache(ClassLoader classLoader) {
+        return RESOURCE_CACHE.computeIfAbsent(classLoader, ClassLoaderResourceCache::new);
+    }
+
+    /**
+     * 比较判断types1和types2两组类，如果types1中所有的类都与types2对应位置的类相同，或者是其父类或接口，则返回{@code true}<br>
+     * 原始类型与包装类型视为相同。同一数组或对应位置的类全部相同时直接返回，不做类型判断
      *
      * @param types1 类组1
      * @param types2 类组2
      * @return 是否相同、父类或接口
      */
     public static boolean isAllAssignableFrom(Class<?>[] types1, Class<?>[] types2) {
-        if (ArrayUtil.isEmpty(types1) && ArrayUtil.isEmpty(types2)) {
+        if (types1 == types2 || (ArrayUtils.isEmpty(types1) && ArrayUtils.isEmpty(types2))) {
             return true;
         }
         if (null == types1 || null == types2) {
@@ -193,14 +277,25 @@ public class ClasspathUtils {
             return false;
         }
 
+        // 签名完全相同（最常见的精确匹配）时无需逐个判断
+        int i = 0;
+        while (i < types1.length && types1[i] == types2[i]) {
+            i++;
+        }
+
         Class<?> type1;
         Class<?> type2;
-        for (int i = 0; i < types1.length; i++) {
+        for (; i < types1.length; i++) {
             type1 = types1[i];
             type2 = types2[i];
-            if (isBasicType(type1) && isBasicType(type2)) {
+            if (type1 == type2) {
+                continue;
+            }
+            final int kind1 = ClassTraits.of(type1).basicKind();
+            final int kind2 = ClassTraits.of(type2).basicKind();
+            if (0 != kind1 && 0 != kind2) {
                 // 原始类型和包装类型存在不一致情况
-                if (BasicType.unWrap(type1) != BasicType.unWrap(type2)) {
+                if (kind1 != kind2) {
                     return false;
                 }
             } else if (false == type1.isAssignableFrom(type2)) {
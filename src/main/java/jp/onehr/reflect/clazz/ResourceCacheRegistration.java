@@ -0,0 +1,58 @@
+package jp.onehr.reflect.clazz;
+
+import jp.onehr.reflect.cache.CacheRegistry;
+import jp.onehr.reflect.cache.ManagedCache;
+import jp.onehr.reflect.map.WeakConcurrentMap;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 资源查找缓存在{@link CacheRegistry}中的注册，以{@link ClassLoader}为单位清除，不支持容量限制
+ */
+final class ResourceCacheRegistration implements ManagedCache {
+
+    /**
+     * 估算字节数时每个缓存资源的大小（资源名和URL），粗略值
+     */
+    private static final int RESOURCE_BYTES = 256;
+
+    private final WeakConcurrentMap<ClassLoader, ClassLoaderResourceCache> caches;
+
+    /**
+     * 构造
+     *
+     * @param caches {@link ClassLoader}和资源查找缓存的对应Map
+     */
+    ResourceCacheRegistration(WeakConcurrentMap<ClassLoader, ClassLoaderResourceCache> caches) {
+        this.caches = caches;
+    }
+
+    @Override
+    public void clear() {
+        ClasspathUtils.clearResourceCache();
+    }
+
+    @Override
+    public void evictClasses(Predicate<Class<?>> predicate) {
+        // 资源缓存不以类为键
+    }
+
+    @Override
+    public void evictClassLoader(ClassLoader classLoader) {
+        ClasspathUtils.clearResourceCache(classLoader);
+    }
+
+    @Override
+    public long estimatedSize() {
+        final LongAdder size = new LongAdder();
+        caches.forEach((loader, cache) -> size.add(cache.size()));
+        return size.sum();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return estimatedSize() * RESOURCE_BYTES;
+    }
+
+}
@@ -0,0 +1,513 @@
+package jp.onehr.reflect.collection;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 紧凑的唯一键Set，开放寻址实现<br>
+ * 与{@link UniqueKeySet}相同，通过{@link #uniqueGenerator}生成的唯一键去重，但不使用Map：
+ * 键、值和哈希值按加入顺序保存在平行数组中，另有一个int数组作为开放寻址（线性探测）的索引，指向条目下标，
+ * 不再为每个元素创建Map的节点对象，内存占用约为{@link LinkedHashMap}实现的一半。
+ * <ul>
+ *     <li>遍历顺序即加入顺序，无需额外的链表</li>
+ *     <li>删除的条目只做标记，扩容或删除过多时整体压缩</li>
+ *     <li>{@link #addAllIfAbsent(Collection)}按批量大小一次性扩容，避免逐个加入时的多次扩容</li>
+ * </ul>
+ * 此类非线程安全，需要在多线程间共享时使用{@link ConcurrentUniqueKeySet}。
+ * <pre>
+ * {@code Set<UniqueTestBean> set = new CompactUniqueKeySet<>(UniqueTestBean::getId);}
+ * </pre>
+ *
+ * @param <K> 唯一键类型
+ * @param <V> 值对象
+ */
+public class CompactUniqueKeySet<K, V> extends AbstractSet<V> implements Cloneable, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 默认预期元素数量
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 12;
+    /**
+     * 最大索引长度
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * 索引中的空槽位
+     */
+    private static final int EMPTY = 0;
+    /**
+     * 索引中已删除的槽位，查找时继续探测
+     */
+    private static final int DELETED = -1;
+    /**
+     * 已删除条目的键
+     */
+    private static final Object REMOVED = new Object();
+
+    /**
+     * 唯一键生成函数，序列化时一同写出，需要序列化此Set时应使用可序列化的函数
+     */
+    @SuppressWarnings("serial")
+    private final Function<V, K> uniqueGenerator;
+    /**
+     * 开放寻址索引，保存条目下标+1，{@link #EMPTY}表示空，{@link #DELETED}表示已删除
+     */
+    private transient int[] index;
+    private transient int[] hashes;
+    private transient Object[] keys;
+    private transient Object[] values;
+    /**
+     * 已使用的条目数量，包括已删除的条目
+     */
+    private transient int used;
+    private transient int size;
+    private transient int modCount;
+
+    //region 构造
+
+    /**
+     * 构造
+     *
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     */
+    public CompactUniqueKeySet(Function<V, K> uniqueGenerator) {
+        this(DEFAULT_EXPECTED_SIZE, uniqueGenerator);
+    }
+
+    /**
+     * 构造
+     *
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     * @param c               初始化加入的集合
+     */
+    public CompactUniqueKeySet(Function<V, K> uniqueGenerator, Collection<? extends V> c) {
+        this(c.size(), uniqueGenerator);
+        addAll(c);
+    }
+
+    /**
+     * 构造
+     *
+     * @param expectedSize    预期的元素数量
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     */
+    public CompactUniqueKeySet(int expectedSize, Function<V, K> uniqueGenerator) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        this.uniqueGenerator = uniqueGenerator;
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 复制构造，复制已有的唯一键和值，不重新生成唯一键，同时压缩掉已删除的条目
+     *
+     * @param set 被复制的Set
+     */
+    public CompactUniqueKeySet(CompactUniqueKeySet<K, V> set) {
+        this(set.size, set.uniqueGenerator);
+        mergeAll(set);
+    }
+
+    //endregion
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Itr();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        final K key = this.uniqueGenerator.apply((V) o);
+        return find(key, hash(key)) >= 0;
+    }
+
+    @Override
+    public boolean add(V v) {
+        return put(v, false);
+    }
+
+    /**
+     * 加入值，如果值已经存在，则忽略之
+     *
+     * @param v 值
+     * @return 是否成功加入
+     */
+    public boolean addIfAbsent(V v) {
+        return put(v, true);
+    }
+
+    /**
+     * 使用已计算好的唯一键加入值，如果键已经存在，则忽略之<br>
+     * 调用方需保证键与{@link #uniqueGenerator}生成的一致
+     *
+     * @param key 唯一键
+     * @param v   值
+     * @return 是否成功加入
+     */
+    public boolean addIfAbsent(K key, V v) {
+        return put(key, hash(key), v, true);
+    }
+
+    /**
+     * 加入集合中所有的值，如果值已经存在，则忽略之<br>
+     * 加入前按集合大小一次性扩容
+     *
+     * @param c 集合
+     * @return 是否有一个或多个被加入成功
+     */
+    public boolean addAllIfAbsent(Collection<? extends V> c) {
+        ensureCapacity(size + c.size());
+        boolean modified = false;
+        for (V v : c) {
+            if (put(v, true)) {
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * 合并另一个Set中所有的值，如果键已经存在，则忽略之<br>
+     * 直接使用另一个Set中已有的唯一键和哈希值，不重新生成，两个Set的唯一键生成规则需一致
+     *
+     * @param other 另一个Set
+     * @return 是否有一个或多个被加入成功
+     */
+    @SuppressWarnings("unchecked")
+    public boolean mergeAll(CompactUniqueKeySet<K, ? extends V> other) {
+        ensureCapacity(size + other.size);
+        final int count = other.used;
+        boolean modified = false;
+        for (int i = 0; i < count; i++) {
+            final Object key = other.keys[i];
+            if (REMOVED != key && put((K) key, other.hashes[i], (V) other.values[i], true)) {
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends V> c) {
+        ensureCapacity(size + c.size());
+        return super.addAll(c);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        final K key = this.uniqueGenerator.apply((V) o);
+        final int slot = find(key, hash(key));
+        if (slot < 0) {
+            return false;
+        }
+        removeAt(slot);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (used > 0) {
+            Arrays.fill(index, EMPTY);
+            Arrays.fill(keys, 0, used, null);
+            Arrays.fill(values, 0, used, null);
+            used = 0;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompactUniqueKeySet<K, V> clone() {
+        try {
+            final CompactUniqueKeySet<K, V> newSet = (CompactUniqueKeySet<K, V>) super.clone();
+            newSet.index = this.index.clone();
+            newSet.hashes = this.hashes.clone();
+            newSet.keys = this.keys.clone();
+            newSet.values = this.values.clone();
+            newSet.modCount = 0;
+            return newSet;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * 扩容使得至少可以容纳指定数量的元素
+     *
+     * @param expectedSize 预期的元素数量
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize > keys.length) {
+            rebuild(capacityFor(expectedSize));
+        }
+    }
+
+    // region 私有方法
+
+    /**
+     * 加入值
+     *
+     * @param v          值
+     * @param onlyAbsent 为{@code true}时已存在的值不替换
+     * @return 是否为新加入的键
+     */
+    private boolean put(V v, boolean onlyAbsent) {
+        final K key = this.uniqueGenerator.apply(v);
+        return put(key, hash(key), v, onlyAbsent);
+    }
+
+    /**
+     * 使用已计算好的唯一键和哈希值加入值
+     *
+     * @param key        唯一键
+     * @param hash       键的哈希值
+     * @param v          值
+     * @param onlyAbsent 为{@code true}时已存在的值不替换
+     * @return 是否为新加入的键
+     */
+    private boolean put(K key, int hash, V v, boolean onlyAbsent) {
+        final int slot = find(key, hash);
+        if (slot >= 0) {
+            if (false == onlyAbsent) {
+                values[index[slot] - 1] = v;
+            }
+            return false;
+        }
+        if (used == keys.length) {
+            // 删除的条目超过一半时原地压缩，否则扩容一倍
+            rebuild(used - size >= size ? index.length : Math.min(index.length << 1, MAXIMUM_CAPACITY));
+        }
+        final int entry = used++;
+        hashes[entry] = hash;
+        keys[entry] = key;
+        values[entry] = v;
+        index[insertionSlot(hash)] = entry + 1;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * 删除索引槽位指向的条目
+     *
+     * @param slot 索引槽位
+     */
+    private void removeAt(int slot) {
+        final int entry = index[slot] - 1;
+        index[slot] = DELETED;
+        keys[entry] = REMOVED;
+        values[entry] = null;
+        size--;
+        modCount++;
+    }
+
+    /**
+     * 查找键所在的索引槽位
+     *
+     * @param key  键
+     * @param hash 键的哈希值
+     * @return 索引槽位，不存在时返回-1
+     */
+    private int find(Object key, int hash) {
+        final int[] index = this.index;
+        final int mask = index.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final int e = index[i];
+            if (EMPTY == e) {
+                return -1;
+            }
+            if (e > 0 && hashes[e - 1] == hash && Objects.equals(keys[e - 1], key)) {
+                return i;
+            }
+        }
+    }
+
+    /**
+     * 查找新键可以放入的索引槽位，调用前需确认键不存在
+     *
+     * @param hash 键的哈希值
+     * @return 第一个空的或已删除的槽位
+     */
+    private int insertionSlot(int hash) {
+        final int mask = index.length - 1;
+        int i = hash & mask;
+        while (index[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * 按新的索引长度重建，同时压缩掉已删除的条目，保持加入顺序
+     *
+     * @param capacity 新的索引长度
+     */
+    private void rebuild(int capacity) {
+        final int[] oldHashes = this.hashes;
+        final Object[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        final int oldUsed = this.used;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        int entry = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            if (REMOVED == oldKeys[i]) {
+                continue;
+            }
+            hashes[entry] = oldHashes[i];
+            keys[entry] = oldKeys[i];
+            values[entry] = oldValues[i];
+            int slot = oldHashes[i] & mask;
+            while (EMPTY != index[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = ++entry;
+        }
+        this.used = entry;
+        modCount++;
+    }
+
+    /**
+     * 分配空的数组，条目数组长度为索引长度的3/4
+     *
+     * @param capacity 索引长度，2的幂
+     */
+    private void allocate(int capacity) {
+        final int entries = capacity - (capacity >>> 2);
+        this.index = new int[capacity];
+        this.hashes = new int[entries];
+        this.keys = new Object[entries];
+        this.values = new Object[entries];
+        this.used = 0;
+    }
+
+    /**
+     * 计算可以容纳指定数量元素的索引长度
+     *
+     * @param expectedSize 预期的元素数量
+     * @return 索引长度，2的幂
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < MAXIMUM_CAPACITY && capacity - (capacity >>> 2) < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * 计算键的哈希值，高位参与运算
+     *
+     * @param key 键
+     * @return 哈希值
+     */
+    private static int hash(Object key) {
+        final int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (V v : this) {
+            out.writeObject(v);
+        }
+    }
+
+    @Serial
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final int count = in.readInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("Illegal size: " + count);
+        }
+        allocate(capacityFor(count));
+        for (int i = 0; i < count; i++) {
+            put((V) in.readObject(), false);
+        }
+    }
+
+    // endregion
+
+    /**
+     * 按加入顺序遍历的迭代器
+     */
+    private final class Itr implements Iterator<V> {
+        private int cursor;
+        private int lastReturned = -1;
+        private int expectedModCount = modCount;
+
+        /**
+         * 构造
+         */
+        Itr() {
+            skipRemoved();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < used;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= used) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = cursor++;
+            skipRemoved();
+            return (V) values[lastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            final Object key = keys[lastReturned];
+            removeAt(find(key, hashes[lastReturned]));
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * 跳过已删除的条目
+         */
+        private void skipRemoved() {
+            while (cursor < used && REMOVED == keys[cursor]) {
+                cursor++;
+            }
+        }
+    }
+
+}
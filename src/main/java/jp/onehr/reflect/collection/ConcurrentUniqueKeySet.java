@@ -0,0 +1,70 @@
+package jp.onehr.reflect.collection;
+
+import java.io.Serial;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 线程安全的唯一键Set，使用{@link ConcurrentHashMap}存储<br>
+ * 适用于多线程共享的注册表，{@link #addIfAbsent(Object)}是原子的，多个线程加入相同键的值时只有一个成功。
+ * 遍历是弱一致的，不会抛出{@link java.util.ConcurrentModificationException}，不保证加入顺序。
+ * <p>
+ * 唯一键和值均不能为{@code null}。
+ *
+ * @param <K> 唯一键类型
+ * @param <V> 值对象
+ */
+public class ConcurrentUniqueKeySet<K, V> extends UniqueKeySet<K, V> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    //region 构造
+
+    /**
+     * 构造
+     *
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     */
+    public ConcurrentUniqueKeySet(Function<V, K> uniqueGenerator) {
+        super(new ConcurrentHashMap<>(), uniqueGenerator);
+    }
+
+    /**
+     * 构造
+     *
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     * @param c               初始化加入的集合
+     */
+    public ConcurrentUniqueKeySet(Function<V, K> uniqueGenerator, Collection<? extends V> c) {
+        super(new ConcurrentHashMap<>(Math.max(c.size(), 16)), uniqueGenerator);
+        addAll(c);
+    }
+
+    /**
+     * 构造
+     *
+     * @param initialCapacity 初始容量
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     */
+    public ConcurrentUniqueKeySet(int initialCapacity, Function<V, K> uniqueGenerator) {
+        super(new ConcurrentHashMap<>(initialCapacity), uniqueGenerator);
+    }
+
+    /**
+     * 复制构造，复制已有的唯一键和值，不重新生成唯一键
+     *
+     * @param set 被复制的Set
+     */
+    public ConcurrentUniqueKeySet(ConcurrentUniqueKeySet<K, V> set) {
+        super(set);
+    }
+
+    //endregion
+
+    @Override
+    public ConcurrentUniqueKeySet<K, V> clone() {
+        return (ConcurrentUniqueKeySet<K, V>) super.clone();
+    }
+
+}
@@ -1,10 +1,10 @@
 package jp.onehr.reflect.collection;
 
-import jp.onehr.reflect.object.ObjectUtils;
-
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Function;
 
 /**
@@ -19,7 +19,7 @@ import java.util.function.Function;
  * @param <K> 唯一键类型
  * @param <V> 值对象
  */
-public class UniqueKeySet<K, V> extends AbstractSet<V> implements Serializable {
+public class UniqueKeySet<K, V> extends AbstractSet<V> implements Cloneable, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
@@ -93,6 +93,26 @@ public class UniqueKeySet<K, V> extends AbstractSet<V> implements Serializable {
         this.uniqueGenerator = uniqueGenerator;
     }
 
+    /**
+     * 构造，直接使用给定的Map作为存储
+     *
+     * @param map             存储用的Map，定义了Map类型
+     * @param uniqueGenerator 唯一键生成规则函数，用于生成对象对应的唯一键
+     */
+    protected UniqueKeySet(Map<K, V> map, Function<V, K> uniqueGenerator) {
+        this.map = map;
+        this.uniqueGenerator = uniqueGenerator;
+    }
+
+    /**
+     * 复制构造，复制已有的唯一键和值，不重新生成唯一键，Map类型与原Set相同
+     *
+     * @param set 被复制的Set
+     */
+    public UniqueKeySet(UniqueKeySet<K, V> set) {
+        this(copyMap(set.map), set.uniqueGenerator);
+    }
+
     //endregion
 
     @Override
@@ -131,6 +151,18 @@ public class UniqueKeySet<K, V> extends AbstractSet<V> implements Serializable {
         return null == map.putIfAbsent(this.uniqueGenerator.apply(v), v);
     }
 
+    /**
+     * 使用已计算好的唯一键加入值，如果键已经存在，则忽略之<br>
+     * 调用方需保证键与{@link #uniqueGenerator}生成的一致
+     *
+     * @param key 唯一键
+     * @param v   值
+     * @return 是否成功加入
+     */
+    public boolean addIfAbsent(K key, V v) {
+        return null == map.putIfAbsent(key, v);
+    }
+
     /**
      * 加入集合中所有的值，如果值已经存在，则忽略之
      *
@@ -146,6 +178,24 @@ public class UniqueKeySet<K, V> extends AbstractSet<V> implements Serializable {
         return modified;
     }
 
+    /**
+     * 合并另一个Set中所有的值，如果键已经存在，则忽略之<br>
+     * 直接使用另一个Set中已有的唯一键，不重新生成，两个Set的唯一键生成规则需一致<br>
+     * 逐个使用{@link Map#putIfAbsent(Object, Object)}加入，线程安全的Set中与其它线程的加入互不覆盖
+     *
+     * @param other 另一个Set
+     * @return 是否有一个或多个被加入成功
+     */
+    public boolean mergeAll(UniqueKeySet<K, ? extends V> other) {
+        boolean modified = false;
+        for (Map.Entry<K, ? extends V> entry : other.map.entrySet()) {
+            if (null == map.putIfAbsent(entry.getKey(), entry.getValue())) {
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
     @Override
     public boolean remove(Object o) {
         //noinspection unchecked
@@ -162,11 +212,35 @@ public class UniqueKeySet<K, V> extends AbstractSet<V> implements Serializable {
     public UniqueKeySet<K, V> clone() {
         try {
             UniqueKeySet<K, V> newSet = (UniqueKeySet<K, V>) super.clone();
-            newSet.map = ObjectUtils.clone(this.map);
+            newSet.map = copyMap(this.map);
             return newSet;
         } catch (CloneNotSupportedException e) {
             throw new InternalError(e);
         }
     }
 
+    /**
+     * 按原Map的类型复制Map，只复制结构，不复制键和值对象
+     *
+     * @param map 原Map
+     * @param <K> 键类型
+     * @param <V> 值类型
+     * @return 新Map
+     */
+    private static <K, V> Map<K, V> copyMap(Map<K, V> map) {
+        if (map instanceof LinkedHashMap) {
+            return new LinkedHashMap<>(map);
+        }
+        if (map instanceof ConcurrentSkipListMap) {
+            return new ConcurrentSkipListMap<>((ConcurrentSkipListMap<K, V>) map);
+        }
+        if (map instanceof ConcurrentHashMap) {
+            return new ConcurrentHashMap<>(map);
+        }
+        if (map instanceof TreeMap) {
+            return new TreeMap<>((TreeMap<K, V>) map);
+        }
+        return new HashMap<>(map);
+    }
+
 }
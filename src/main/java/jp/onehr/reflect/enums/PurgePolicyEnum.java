@@ -0,0 +1,25 @@
+package jp.onehr.reflect.enums;
+
+/**
+ * 引用Map中被回收键的清除策略
+ */
+public enum PurgePolicyEnum {
+
+    /**
+     * 每次操作（包括读取）前清除，被回收的键最及时地移除，但每次读取都要检查{@link java.lang.ref.ReferenceQueue}
+     */
+    EVERY_OPERATION,
+    /**
+     * 只在写入操作前清除，读取操作只做哈希查找
+     */
+    WRITE,
+    /**
+     * 每N次操作清除一次，将清除的开销平摊到多次操作中
+     */
+    AMORTIZED,
+    /**
+     * 由共享的后台守护线程定期清除，调用线程不做任何清除操作
+     */
+    BACKGROUND
+
+}
@@ -8,6 +8,10 @@ import java.lang.ref.ReferenceQueue;
  */
 public enum ReferenceEnum {
 
+    /**
+     * 强引用，只要对象可达就不会被GC回收
+     */
+    STRONG,
     /**
      * 软引用，在GC报告内存不足时会被GC回收
      */
@@ -1,9 +1,10 @@
 package jp.onehr.reflect.instance;
 
 import jp.onehr.reflect.asserts.Assert;
-import jp.onehr.reflect.map.WeakConcurrentMap;
+import jp.onehr.reflect.cache.ClassCache;
 
 import java.lang.reflect.Constructor;
+import java.util.function.Predicate;
 
 /**
  * 反射工具类
@@ -13,7 +14,24 @@ public class ConstructorReflectUtils {
     /**
      * 构造对象缓存
      */
-    private static final WeakConcurrentMap<Class<?>, Constructor<?>[]> CONSTRUCTORS_CACHE = new WeakConcurrentMap<>();
+    private static final ClassCache<Constructor<?>[]> CONSTRUCTORS_CACHE = ClassCache.create("constructors");
+
+    /**
+     * 清空构造方法缓存
+     */
+    public static void clearCache() {
+        CONSTRUCTORS_CACHE.clear();
+    }
+
+    /**
+     * 清除满足条件的类对应的构造方法缓存，用于类在运行期被重新定义的情况
+     *
+     * @param predicate 类过滤器，返回{@code true}的类缓存被清除
+     */
+    public static void clearCache(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        CONSTRUCTORS_CACHE.removeIf(predicate);
+    }
 
     /**
      * 查找类中的指定参数的构造方法，如果找到构造方法，会自动设置可访问为true
@@ -53,7 +71,7 @@ public class ConstructorReflectUtils {
     @SuppressWarnings("unchecked")
     public static <T> Constructor<T>[] getConstructors(Class<T> beanClass) throws SecurityException {
         Assert.notNull(beanClass);
-        return (Constructor<T>[]) CONSTRUCTORS_CACHE.computeIfAbsent(beanClass, () -> getConstructorsDirectly(beanClass));
+        return (Constructor<T>[]) CONSTRUCTORS_CACHE.get(beanClass, ConstructorReflectUtils::getConstructorsDirectly);
     }
 
     /**
@@ -1,11 +1,12 @@
 package jp.onehr.reflect.instance;
 
 import jp.onehr.reflect.asserts.Assert;
-import jp.onehr.reflect.map.WeakConcurrentMap;
+import jp.onehr.reflect.cache.ClassCache;
 
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  * 反射工具类
@@ -15,7 +16,24 @@ public class FieldReflectUtils {
     /**
      * 字段缓存
      */
-    private static final WeakConcurrentMap<Class<?>, Field[]> FIELDS_CACHE = new WeakConcurrentMap<>();
+    private static final ClassCache<Field[]> FIELDS_CACHE = ClassCache.create("fields");
+
+    /**
+     * 清空字段缓存
+     */
+    public static void clearCache() {
+        FIELDS_CACHE.clear();
+    }
+
+    /**
+     * 清除满足条件的类对应的字段缓存，用于类在运行期被重新定义的情况
+     *
+     * @param predicate 类过滤器，返回{@code true}的类缓存被清除
+     */
+    public static void clearCache(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        FIELDS_CACHE.removeIf(predicate);
+    }
 
     /**
      * 查找指定类中是否包含指定名称对应的字段，包括所有字段（包括非public字段），也包括父类和Object类的字段
@@ -90,7 +108,7 @@ public class FieldReflectUtils {
      */
     public static Field[] getFields(Class<?> beanClass) throws SecurityException {
         Assert.notNull(beanClass);
-        return FIELDS_CACHE.computeIfAbsent(beanClass, () -> getFieldsDirectly(beanClass, true));
+        return FIELDS_CACHE.get(beanClass, clazz -> getFieldsDirectly(clazz, true));
     }
 
 
@@ -1,18 +1,36 @@
 package jp.onehr.reflect.instance;
 
 import jp.onehr.reflect.asserts.Assert;
-import jp.onehr.reflect.collection.UniqueKeySet;
-import jp.onehr.reflect.map.WeakConcurrentMap;
+import jp.onehr.reflect.cache.ClassCache;
+import jp.onehr.reflect.collection.CompactUniqueKeySet;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.function.Predicate;
 
 public class MethodReflectUtils {
 
     /**
      * 方法缓存
      */
-    private static final WeakConcurrentMap<Class<?>, Method[]> METHODS_CACHE = new WeakConcurrentMap<>();
+    private static final ClassCache<Method[]> METHODS_CACHE = ClassCache.create("methods");
+
+    /**
+     * 清空方法缓存
+     */
+    public static void clearCache() {
+        METHODS_CACHE.clear();
+    }
+
+    /**
+     * 清除满足条件的类对应的方法缓存，用于类在运行期被重新定义的情况
+     *
+     * @param predicate 类过滤器，返回{@code true}的类缓存被清除
+     */
+    public static void clearCache(Predicate<Class<?>> predicate) {
+        Assert.notNull(predicate);
+        METHODS_CACHE.removeIf(predicate);
+    }
 
     /**
      * 获得指定类本类及其父类中的Public方法名<br>
@@ -309,8 +327,7 @@ public class MethodReflectUtils {
      */
     public static Method[] getMethods(Class<?> beanClass) throws SecurityException {
         Assert.notNull(beanClass);
-        return METHODS_CACHE.computeIfAbsent(beanClass,
-                () -> getMethodsDirectly(beanClass, true, true));
+        return METHODS_CACHE.get(beanClass, clazz -> getMethodsDirectly(clazz, true, true));
     }
 
     /**
@@ -336,7 +353,7 @@ public class MethodReflectUtils {
             return withSupers ? beanClass.getMethods() : beanClass.getDeclaredMethods();
         }
 
-        final UniqueKeySet<String, Method> result = new UniqueKeySet<>(true, ReflectUtil::getUniqueKey);
+        final CompactUniqueKeySet<String, Method> result = new CompactUniqueKeySet<>(ReflectUtil::getUniqueKey);
         Class<?> searchType = beanClass;
         while (searchType != null) {
             if (false == withMethodFromObject && Object.class == searchType) {
@@ -0,0 +1,612 @@
+package jp.onehr.reflect.jar;
+
+import jp.onehr.reflect.asserts.Assert;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 基于内存映射的只读jar（zip）文件读取器<br>
+ * 打开时映射整个文件并解析中央目录，条目名以UTF-8字节形式保存在开放寻址哈希表中，查询时不解码条目名，<br>
+ * STORED（未压缩）条目直接返回映射内存的{@link ByteBuffer}切片，读取为零拷贝；DEFLATED条目使用{@link Inflater}直接从映射内存解压。
+ *
+ * <pre>
+ * try (MappedJarFile jar = MappedJarFile.open(new File("app.jar"))) {
+ *     ByteBuffer bytes = jar.getBuffer("com/example/Foo.class");
+ * }
+ * </pre>
+ * <p>
+ * 注意：仅支持小于2GB的文件；映射内存在关闭后直到被GC回收前仍然有效，已返回的切片可继续读取。<br>
+ * 所有偏移和长度在读取前校验，文件截断或损坏时统一抛出{@link IllegalArgumentException}。<br>
+ * 打开后对象不可变，可被多线程并发读取。
+ */
+public class MappedJarFile implements Closeable {
+
+    /**
+     * 压缩方式：不压缩
+     */
+    public static final int STORED = 0;
+    /**
+     * 压缩方式：DEFLATE
+     */
+    public static final int DEFLATED = 8;
+
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int LOC_HEADER_SIZE = 30;
+    private static final int CEN_HEADER_SIZE = 46;
+    private static final int END_HEADER_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_END_SIZE = 56;
+    /**
+     * zip64扩展字段的标识
+     */
+    private static final int ZIP64_EXTRA_TAG = 0x0001;
+    /**
+     * 中央目录中大小或偏移的值为此值时，实际值保存在zip64扩展字段中
+     */
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    /**
+     * 中央目录中原始大小、压缩后大小、本地头偏移字段的位置，按zip64扩展字段中的顺序
+     */
+    private static final int[] CEN_FIELD_OFFSETS = {24, 20, 42};
+    /**
+     * EOCD记录之后的注释最大长度
+     */
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    /**
+     * 各条目在中央目录中的偏移
+     */
+    private final int[] cenOffsets;
+    /**
+     * 开放寻址哈希表，值为条目下标+1，0表示空槽
+     */
+    private final int[] table;
+    /**
+     * 各条目名的哈希值
+     */
+    private final int[] hashes;
+
+    /**
+     * 打开jar文件
+     *
+     * @param file jar文件
+     * @return {@link MappedJarFile}
+     * @throws UncheckedIOException     IO异常
+     * @throws IllegalArgumentException 文件不是合法的zip文件
+     */
+    public static MappedJarFile open(File file) throws UncheckedIOException, IllegalArgumentException {
+        Assert.notNull(file);
+        try {
+            return new MappedJarFile(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 构造
+     *
+     * @param file jar文件
+     * @throws IOException IO异常
+     */
+    private MappedJarFile(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Jar file larger than 2GB is not supported: " + file);
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+
+            final int endOffset = findEnd();
+            long cenOffset = Integer.toUnsignedLong(buffer.getInt(endOffset + 16));
+            long count = buffer.getShort(endOffset + 10) & 0xFFFF;
+            if (0xFFFF == count || 0xFFFFFFFFL == cenOffset) {
+                // zip64，条目数或中央目录偏移在zip64 EOCD记录中
+                final int locator = endOffset - ZIP64_LOCATOR_SIZE;
+                if (locator < 0 || ZIP64_LOCATOR_SIG != buffer.getInt(locator)) {
+                    throw new IllegalArgumentException("Invalid zip64 end record: " + file);
+                }
+                final long zip64End = buffer.getLong(locator + 8);
+                if (zip64End < 0 || zip64End + ZIP64_END_SIZE > endOffset
+                        || ZIP64_END_SIG != buffer.getInt((int) zip64End)) {
+                    throw new IllegalArgumentException("Invalid zip64 end record: " + file);
+                }
+                count = buffer.getLong((int) zip64End + 32);
+                cenOffset = buffer.getLong((int) zip64End + 48);
+            }
+            if (count < 0 || count > Integer.MAX_VALUE / 2 || cenOffset < 0 || cenOffset > size) {
+                throw new IllegalArgumentException("Invalid central directory: " + file);
+            }
+
+            final int entryCount = (int) count;
+            this.cenOffsets = new int[entryCount];
+            this.hashes = new int[entryCount];
+            this.table = new int[tableSizeFor(entryCount)];
+            final int mask = table.length - 1;
+            int offset = (int) cenOffset;
+            for (int i = 0; i < entryCount; i++) {
+                if ((long) offset + CEN_HEADER_SIZE > size || CEN_SIG != buffer.getInt(offset)) {
+                    throw new IllegalArgumentException("Invalid central directory entry at " + offset + ": " + file);
+                }
+                final int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+                final int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+                final int commentLength = buffer.getShort(offset + 32) & 0xFFFF;
+                if ((long) offset + CEN_HEADER_SIZE + nameLength + extraLength + commentLength > size) {
+                    throw new IllegalArgumentException("Truncated central directory entry at " + offset + ": " + file);
+                }
+                cenOffsets[i] = offset;
+                final int hash = hash(buffer, offset + CEN_HEADER_SIZE, nameLength);
+                hashes[i] = hash;
+                int slot = hash & mask;
+                while (0 != table[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = i + 1;
+                offset += CEN_HEADER_SIZE + nameLength + extraLength + commentLength;
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取jar文件
+     *
+     * @return jar文件
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 条目数量
+     *
+     * @return 条目数量
+     */
+    public int size() {
+        return cenOffsets.length;
+    }
+
+    /**
+     * 是否包含指定条目
+     *
+     * @param name 条目名，例如：com/example/Foo.class
+     * @return 是否包含
+     */
+    public boolean contains(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * 获取条目信息
+     *
+     * @param name 条目名，例如：com/example/Foo.class
+     * @return 条目信息，不存在返回{@code null}
+     */
+    public Entry getEntry(String name) {
+        final int index = indexOf(name);
+        return index < 0 ? null : new Entry(name, cenOffsets[index]);
+    }
+
+    /**
+     * 获取条目内容<br>
+     * STORED条目返回映射内存的只读切片（零拷贝），DEFLATED条目返回解压后的堆内存buffer
+     *
+     * @param name 条目名，例如：com/example/Foo.class
+     * @return 条目内容，不存在返回{@code null}
+     */
+    public ByteBuffer getBuffer(String name) {
+        final Entry entry = getEntry(name);
+        return null == entry ? null : entry.getBuffer();
+    }
+
+    /**
+     * 获取条目内容的字节数组副本
+     *
+     * @param name 条目名，例如：com/example/Foo.class
+     * @return 条目内容，不存在返回{@code null}
+     */
+    public byte[] getBytes(String name) {
+        final ByteBuffer entryBuffer = getBuffer(name);
+        if (null == entryBuffer) {
+            return null;
+        }
+        if (entryBuffer.hasArray() && 0 == entryBuffer.arrayOffset() && entryBuffer.remaining() == entryBuffer.array().length) {
+            return entryBuffer.array();
+        }
+        final byte[] bytes = new byte[entryBuffer.remaining()];
+        entryBuffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 按中央目录顺序遍历所有条目
+     *
+     * @param consumer 条目处理函数
+     */
+    public void forEach(Consumer<Entry> consumer) {
+        for (int cenOffset : cenOffsets) {
+            final int nameLength = buffer.getShort(cenOffset + 28) & 0xFFFF;
+            consumer.accept(new Entry(decode(cenOffset + CEN_HEADER_SIZE, nameLength), cenOffset));
+        }
+    }
+
+    /**
+     * 获取所有条目名
+     *
+     * @return 条目名列表
+     */
+    public List<String> getNames() {
+        final List<String> names = new ArrayList<>(cenOffsets.length);
+        forEach(entry -> names.add(entry.getName()));
+        return names;
+    }
+
+    /**
+     * 关闭文件通道，已映射的内存由GC回收
+     *
+     * @throws IOException IO异常
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "MappedJarFile{" + file + ", entries=" + cenOffsets.length + '}';
+    }
+
+    // region 私有方法
+
+    /**
+     * 查找条目下标
+     *
+     * @param name 条目名
+     * @return 下标，不存在返回-1
+     */
+    private int indexOf(String name) {
+        if (null == name || 0 == cenOffsets.length) {
+            return -1;
+        }
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        final int hash = hash(nameBytes);
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int value;
+        while (0 != (value = table[slot])) {
+            final int index = value - 1;
+            if (hashes[index] == hash && nameEquals(cenOffsets[index], nameBytes)) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 比较中央目录中的条目名与给定名称
+     *
+     * @param cenOffset 条目在中央目录中的偏移
+     * @param nameBytes 名称UTF-8字节
+     * @return 是否相同
+     */
+    private boolean nameEquals(int cenOffset, byte[] nameBytes) {
+        final int nameLength = buffer.getShort(cenOffset + 28) & 0xFFFF;
+        if (nameLength != nameBytes.length) {
+            return false;
+        }
+        final int start = cenOffset + CEN_HEADER_SIZE;
+        for (int i = 0; i < nameLength; i++) {
+            if (buffer.get(start + i) != nameBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从文件末尾向前查找EOCD记录
+     *
+     * @return EOCD记录偏移
+     */
+    private int findEnd() {
+        final int limit = buffer.limit();
+        final int min = Math.max(0, limit - END_HEADER_SIZE - MAX_COMMENT_SIZE);
+        for (int offset = limit - END_HEADER_SIZE; offset >= min; offset--) {
+            if (END_SIG == buffer.getInt(offset)
+                    && offset + END_HEADER_SIZE + (buffer.getShort(offset + 20) & 0xFFFF) == limit) {
+                return offset;
+            }
+        }
+        throw new IllegalArgumentException("Not a zip file, end of central directory not found: " + file);
+    }
+
+    /**
+     * 解码UTF-8条目名
+     *
+     * @param offset 偏移
+     * @param length 长度
+     * @return 条目名
+     */
+    private String decode(int offset, int length) {
+        return StandardCharsets.UTF_8.decode(buffer.slice(offset, length)).toString();
+    }
+
+    /**
+     * 计算映射内存中名称字节的哈希值，须与{@link #hash(byte[])}结果一致
+     *
+     * @param buf    buffer
+     * @param offset 偏移
+     * @param length 长度
+     * @return 哈希值
+     */
+    private static int hash(ByteBuffer buf, int offset, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + (buf.get(offset + i) & 0xFF);
+        }
+        return spread(h);
+    }
+
+    /**
+     * 计算名称字节的哈希值
+     *
+     * @param bytes 名称字节
+     * @return 哈希值
+     */
+    private static int hash(byte[] bytes) {
+        int h = 0;
+        for (byte b : bytes) {
+            h = 31 * h + (b & 0xFF);
+        }
+        return spread(h);
+    }
+
+    /**
+     * 打散哈希值的高位，减少线性探测的聚集
+     *
+     * @param h 原始哈希值
+     * @return 哈希值
+     */
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 计算哈希表大小，为不小于条目数2倍的2的幂
+     *
+     * @param count 条目数
+     * @return 哈希表大小
+     */
+    private static int tableSizeFor(int count) {
+        final int n = Math.max(2, count * 2);
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+    // endregion
+
+    /**
+     * jar中的条目
+     */
+    public final class Entry {
+
+        private final String name;
+        private final int cenOffset;
+
+        /**
+         * 构造
+         *
+         * @param name      条目名
+         * @param cenOffset 条目在中央目录中的偏移
+         */
+        private Entry(String name, int cenOffset) {
+            this.name = name;
+            this.cenOffset = cenOffset;
+        }
+
+        /**
+         * 获取条目名
+         *
+         * @return 条目名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 是否为目录
+         *
+         * @return 是否为目录
+         */
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        /**
+         * 获取压缩方式，见{@link #STORED}和{@link #DEFLATED}
+         *
+         * @return 压缩方式
+         */
+        public int getMethod() {
+            return buffer.getShort(cenOffset + 10) & 0xFFFF;
+        }
+
+        /**
+         * 是否为未压缩条目，未压缩条目的{@link #getBuffer()}为零拷贝
+         *
+         * @return 是否未压缩
+         */
+        public boolean isStored() {
+            return STORED == getMethod();
+        }
+
+        /**
+         * 获取CRC32校验值
+         *
+         * @return CRC32
+         */
+        public long getCrc() {
+            return Integer.toUnsignedLong(buffer.getInt(cenOffset + 16));
+        }
+
+        /**
+         * 获取压缩后大小，超过4GB时从zip64扩展字段读取
+         *
+         * @return 压缩后大小
+         * @throws IllegalArgumentException zip64扩展字段缺失或损坏
+         */
+        public long getCompressedSize() throws IllegalArgumentException {
+            return zip64Value(1);
+        }
+
+        /**
+         * 获取原始大小，超过4GB时从zip64扩展字段读取
+         *
+         * @return 原始大小
+         * @throws IllegalArgumentException zip64扩展字段缺失或损坏
+         */
+        public long getSize() throws IllegalArgumentException {
+            return zip64Value(0);
+        }
+
+        /**
+         * 获取条目内容<br>
+         * STORED条目返回映射内存的只读切片（零拷贝），DEFLATED条目返回解压后的堆内存buffer
+         *
+         * @return 条目内容
+         * @throws IllegalArgumentException 不支持的压缩方式或数据损坏
+         */
+        public ByteBuffer getBuffer() throws IllegalArgumentException {
+            final ByteBuffer raw = getRawBuffer();
+            final int method = getMethod();
+            if (STORED == method) {
+                return raw;
+            }
+            if (DEFLATED != method) {
+                throw new IllegalArgumentException("Unsupported compression method " + method + " for entry: " + name);
+            }
+
+            final long size = getSize();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Entry larger than 2GB is not supported: " + name);
+            }
+            final byte[] out = new byte[(int) size];
+            final Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(raw);
+                int count = 0;
+                while (count < out.length) {
+                    final int inflated = inflater.inflate(out, count, out.length - count);
+                    if (0 == inflated && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    count += inflated;
+                }
+                if (count != out.length) {
+                    throw new IllegalArgumentException("Corrupt deflated entry: " + name);
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalArgumentException("Corrupt deflated entry: " + name, e);
+            } finally {
+                inflater.end();
+            }
+            return ByteBuffer.wrap(out);
+        }
+
+        /**
+         * 获取条目的原始（可能已压缩）数据，为映射内存的只读切片
+         *
+         * @return 原始数据
+         * @throws IllegalArgumentException 本地头或数据超出文件范围
+         */
+        public ByteBuffer getRawBuffer() throws IllegalArgumentException {
+            final int limit = buffer.limit();
+            final long localOffset = zip64Value(2);
+            if (localOffset + LOC_HEADER_SIZE > limit || LOC_SIG != buffer.getInt((int) localOffset)) {
+                throw new IllegalArgumentException("Invalid local header for entry: " + name);
+            }
+            final int nameLength = buffer.getShort((int) localOffset + 26) & 0xFFFF;
+            final int extraLength = buffer.getShort((int) localOffset + 28) & 0xFFFF;
+            final long dataOffset = localOffset + LOC_HEADER_SIZE + nameLength + extraLength;
+            final long compressedSize = getCompressedSize();
+            if (dataOffset + compressedSize > limit) {
+                throw new IllegalArgumentException("Truncated data for entry: " + name);
+            }
+            return buffer.slice((int) dataOffset, (int) compressedSize).asReadOnlyBuffer().order(ByteOrder.BIG_ENDIAN);
+        }
+
+        /**
+         * 读取中央目录中的原始大小、压缩后大小或本地头偏移<br>
+         * 值为0xFFFFFFFF时实际值在zip64扩展字段中，扩展字段按原始大小、压缩后大小、本地头偏移的顺序只保存为0xFFFFFFFF的字段
+         *
+         * @param field 字段序号：0原始大小，1压缩后大小，2本地头偏移
+         * @return 值
+         * @throws IllegalArgumentException zip64扩展字段缺失或损坏
+         */
+        private long zip64Value(int field) throws IllegalArgumentException {
+            final long value = Integer.toUnsignedLong(buffer.getInt(cenOffset + CEN_FIELD_OFFSETS[field]));
+            if (ZIP64_MAGIC != value) {
+                return value;
+            }
+            int skip = 0;
+            for (int i = 0; i < field; i++) {
+                if (ZIP64_MAGIC == Integer.toUnsignedLong(buffer.getInt(cenOffset + CEN_FIELD_OFFSETS[i]))) {
+                    skip += 8;
+                }
+            }
+            final int nameLength = buffer.getShort(cenOffset + 28) & 0xFFFF;
+            final int extraLength = buffer.getShort(cenOffset + 30) & 0xFFFF;
+            // 构造时已校验扩展字段在文件范围内
+            int extra = cenOffset + CEN_HEADER_SIZE + nameLength;
+            final int end = extra + extraLength;
+            while (extra + 4 <= end) {
+                final int tag = buffer.getShort(extra) & 0xFFFF;
+                final int length = buffer.getShort(extra + 2) & 0xFFFF;
+                if (extra + 4 + length > end) {
+                    break;
+                }
+                if (ZIP64_EXTRA_TAG == tag) {
+                    if (skip + 8 > length) {
+                        break;
+                    }
+                    final long zip64 = buffer.getLong(extra + 4 + skip);
+                    if (zip64 < 0) {
+                        break;
+                    }
+                    return zip64;
+                }
+                extra += 4 + length;
+            }
+            throw new IllegalArgumentException("Invalid zip64 extra field for entry: " + name);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package jp.onehr.reflect.map;
+
+import java.lang.ref.Reference;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 容量限制策略（W-TinyLFU）<br>
+ * 新键先进入窗口LRU（容量的1%），从窗口淘汰出来的候选键与主LRU中最久未访问的键比较访问频率，
+ * 频率低的一方被驱逐，使偶发的一次性访问不会挤掉经常访问的键。<br>
+ * 读取时只尝试获取锁，获取失败则放弃记录本次访问（有损），不阻塞读线程。
+ *
+ * @param <K> 键类型
+ */
+final class BoundedPolicy<K> {
+
+    private final long maximum;
+    private final long windowMaximum;
+    /**
+     * 是否按权重限制，按权重时键的数量未知，访问频率表随键的数量增长
+     */
+    private final boolean weighted;
+    private FrequencySketch sketch;
+    private long sketchCapacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 窗口LRU：键 -> 权重，按访问顺序
+     */
+    private final LinkedHashMap<Object, Integer> window = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * 主LRU：键 -> 权重，按访问顺序
+     */
+    private final LinkedHashMap<Object, Integer> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long mainWeight;
+
+    /**
+     * 构造
+     *
+     * @param maximum  最大数量或权重
+     * @param weighted 是否按权重限制
+     */
+    BoundedPolicy(long maximum, boolean weighted) {
+        this.maximum = maximum;
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.weighted = weighted;
+        this.sketchCapacity = weighted ? 16 : maximum;
+        this.sketch = new FrequencySketch(sketchCapacity);
+    }
+
+    /**
+     * 记录一次读取，锁被占用时放弃
+     *
+     * @param key 查找键，与已保存的{@link Reference}键相等
+     */
+    void recordRead(Object key) {
+        if (false == lock.tryLock()) {
+            return;
+        }
+        try {
+            sketch.increment(key.hashCode());
+            if (null == window.get(key)) {
+                main.get(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录一次写入（新增或更新），必要时驱逐
+     *
+     * @param key    保存的键
+     * @param weight 权重
+     * @return 被驱逐的键
+     */
+    List<Reference<K>> recordWrite(Reference<K> key, int weight) {
+        lock.lock();
+        try {
+            sketch.increment(key.hashCode());
+            final Integer old = window.get(key);
+            if (null != old) {
+                window.put(key, weight);
+                windowWeight += weight - old;
+            } else {
+                final Integer oldMain = main.get(key);
+                if (null != oldMain) {
+                    main.put(key, weight);
+                    mainWeight += weight - oldMain;
+                } else {
+                    window.put(key, weight);
+                    windowWeight += weight;
+                    ensureSketchCapacity();
+                }
+            }
+            return evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录一次删除
+     *
+     * @param key 查找键或保存的键
+     */
+    void recordRemove(Object key) {
+        lock.lock();
+        try {
+            Integer weight = window.remove(key);
+            if (null != weight) {
+                windowWeight -= weight;
+            } else if (null != (weight = main.remove(key))) {
+                mainWeight -= weight;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 是否记录了指定的键
+     *
+     * @param key 查找键或保存的键
+     * @return 是否记录
+     */
+    boolean contains(Object key) {
+        lock.lock();
+        try {
+            return window.containsKey(key) || main.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空
+     */
+    void clear() {
+        lock.lock();
+        try {
+            window.clear();
+            main.clear();
+            windowWeight = 0;
+            mainWeight = 0;
+            sketch.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 按权重限制时，键的数量超出访问频率表的容量后扩容，已记录的键的计数复制到新表
+     */
+    private void ensureSketchCapacity() {
+        final long size = window.size() + main.size();
+        if (weighted && size > sketchCapacity) {
+            sketchCapacity = size << 1;
+            final FrequencySketch old = sketch;
+            sketch = new FrequencySketch(sketchCapacity);
+            for (Object key : window.keySet()) {
+                sketch.copy(old, key.hashCode());
+            }
+            for (Object key : main.keySet()) {
+                sketch.copy(old, key.hashCode());
+            }
+        }
+    }
+
+    /**
+     * 将超出窗口容量的键移入主LRU，超出总容量时按访问频率驱逐
+     *
+     * @return 被驱逐的键
+     */
+    @SuppressWarnings("unchecked")
+    private List<Reference<K>> evict() {
+        final Deque<Object> candidates = new ArrayDeque<>();
+        while (windowWeight > windowMaximum && window.size() > 1) {
+            final Map.Entry<Object, Integer> eldest = window.entrySet().iterator().next();
+            window.remove(eldest.getKey());
+            windowWeight -= eldest.getValue();
+            main.put(eldest.getKey(), eldest.getValue());
+            mainWeight += eldest.getValue();
+            candidates.add(eldest.getKey());
+        }
+
+        List<Reference<K>> evicted = Collections.emptyList();
+        while (windowWeight + mainWeight > maximum) {
+            final Object victim;
+            if (main.isEmpty()) {
+                victim = window.keySet().iterator().next();
+            } else {
+                final Object mainVictim = main.keySet().iterator().next();
+                final Object candidate = candidates.pollLast();
+                if (null == candidate || candidate == mainVictim || false == main.containsKey(candidate)) {
+                    victim = mainVictim;
+                } else if (sketch.frequency(candidate.hashCode()) > sketch.frequency(mainVictim.hashCode())) {
+                    victim = mainVictim;
+                    // 候选键胜出，仍可能与下一个驱逐对象比较
+                    candidates.addLast(candidate);
+                } else {
+                    victim = candidate;
+                }
+            }
+            Integer weight = window.remove(victim);
+            if (null != weight) {
+                windowWeight -= weight;
+            } else {
+                mainWeight -= main.remove(victim);
+            }
+            if (evicted.isEmpty()) {
+                evicted = new ArrayList<>(2);
+            }
+            evicted.add((Reference<K>) victim);
+        }
+        return evicted;
+    }
+
+}
@@ -0,0 +1,146 @@
+package jp.onehr.reflect.map;
+
+import java.io.Serializable;
+
+/**
+ * 缓存统计快照，不可变
+ */
+public final class CacheStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+    private final long estimatedSize;
+
+    /**
+     * 构造
+     *
+     * @param hitCount         命中次数
+     * @param missCount        未命中次数
+     * @param loadSuccessCount 加载成功次数
+     * @param loadFailureCount 加载失败次数
+     * @param totalLoadTime    加载总耗时，单位纳秒
+     * @param evictionCount    清除次数
+     * @param estimatedSize    估算的键值对数量，未知时为-1
+     */
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                      long totalLoadTime, long evictionCount, long estimatedSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+        this.estimatedSize = estimatedSize;
+    }
+
+    /**
+     * 获取命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 获取未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * 获取请求次数（命中与未命中之和）
+     *
+     * @return 请求次数
+     */
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * 获取命中率，没有请求时为1
+     *
+     * @return 命中率，0~1
+     */
+    public double getHitRate() {
+        final long requestCount = getRequestCount();
+        return 0 == requestCount ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * 获取加载成功次数
+     *
+     * @return 加载成功次数
+     */
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    /**
+     * 获取加载失败次数（抛出异常或返回{@code null}）
+     *
+     * @return 加载失败次数
+     */
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * 获取加载总耗时
+     *
+     * @return 加载总耗时，单位纳秒
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * 获取平均每次加载的耗时
+     *
+     * @return 平均加载耗时，单位纳秒，没有加载时为0
+     */
+    public double getAverageLoadPenalty() {
+        final long loadCount = loadSuccessCount + loadFailureCount;
+        return 0 == loadCount ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * 获取清除次数（被GC回收、过期或超出容量被驱逐）
+     *
+     * @return 清除次数
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 获取估算的键值对数量
+     *
+     * @return 键值对数量，未知时为-1
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCount=" + evictionCount +
+                ", estimatedSize=" + estimatedSize +
+                '}';
+    }
+
+}
@@ -0,0 +1,619 @@
+package jp.onehr.reflect.map;
+
+import jp.onehr.reflect.func.Func0;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 紧凑的线程安全弱键Map，开放寻址（线性探测）实现<br>
+ * 与{@link WeakConcurrentMap}相比，不再为每个键值对创建{@link java.util.concurrent.ConcurrentHashMap}的节点对象，
+ * 哈希值内联保存在int数组中，键槽直接保存弱引用，值保存在平行数组中，适用于键数量很大的缓存（例如数万个类的反射缓存）。
+ *
+ * <ul>
+ *     <li>读取（get、containsKey）无锁、不分配对象：按哈希值探测，直接比较弱引用指向的原始键</li>
+ *     <li>写入在同一把锁下进行，被回收的键在写入时清除</li>
+ *     <li>compute系列方法的函数在锁外执行，之后在锁内按旧值比较后写入，竞争时函数可能被调用多次</li>
+ *     <li>删除的槽位标记为墓碑，不再复用；扩容（或墓碑过多时重建）时复制到新表后整体发布，正在读取旧表的线程不受影响</li>
+ * </ul>
+ * <p>
+ * 键和值均不能为{@code null}。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class CompactWeakConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    /**
+     * 默认容量，必须为2的幂
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    /**
+     * 最大容量
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+    /**
+     * 已删除槽位的标记
+     */
+    private static final Object TOMBSTONE = new Object();
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Table table;
+    /**
+     * 键值对数量，包括已被回收但尚未清除的键
+     */
+    private volatile int size;
+    /**
+     * 当前表中的墓碑数量，只在锁内访问
+     */
+    private int tombstones;
+
+    // region 构造
+
+    /**
+     * 构造
+     */
+    public CompactWeakConcurrentMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 构造
+     *
+     * @param initialCapacity 预期的键值对数量
+     */
+    public CompactWeakConcurrentMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+        this.table = new Table(capacityFor(initialCapacity));
+    }
+    // endregion
+
+    @Override
+    public int size() {
+        purge();
+        return this.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == size();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final int hash = hash(key);
+        final Table tab = this.table;
+        final int i = tab.find(key, hash);
+        return i < 0 ? null : (V) SLOTS.getAcquire(tab.values, i);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return null != get(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        lock.lock();
+        try {
+            purgeLocked();
+            final Table tab = this.table;
+            final int i = tab.find(key, hash);
+            if (i >= 0) {
+                final V old = (V) tab.values[i];
+                SLOTS.setRelease(tab.values, i, value);
+                return old;
+            }
+            insertLocked(key, hash, value);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        lock.lock();
+        try {
+            purgeLocked();
+            final Table tab = this.table;
+            final int i = tab.find(key, hash);
+            if (i >= 0) {
+                return (V) tab.values[i];
+            }
+            insertLocked(key, hash, value);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        final V value = get(key);
+        if (null != value) {
+            return value;
+        }
+        // 函数在锁外执行，避免慢加载阻塞其它键的写入，并发加载时先写入的值生效
+        final V newValue = mappingFunction.apply(key);
+        if (null == newValue) {
+            return null;
+        }
+        final V existing = putIfAbsent(key, newValue);
+        return null == existing ? newValue : existing;
+    }
+
+    /**
+     * 从缓存中获得对象，当对象不在缓存中时返回Func0回调产生的对象并放入缓存
+     *
+     * @param key      键
+     * @param supplier 如果不存在回调方法，用于生产值对象
+     * @return 值对象
+     */
+    public V computeIfAbsent(K key, Func0<? extends V> supplier) {
+        return computeIfAbsent(key, (keyParam) -> supplier.callWithRuntimeException());
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        V oldValue;
+        while (null != (oldValue = get(key))) {
+            final V newValue = remappingFunction.apply(key, oldValue);
+            if (null == newValue) {
+                if (remove(key, oldValue)) {
+                    return null;
+                }
+            } else if (replace(key, oldValue, newValue)) {
+                return newValue;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(remappingFunction);
+        while (true) {
+            final V oldValue = get(key);
+            final V newValue = remappingFunction.apply(key, oldValue);
+            if (null == oldValue) {
+                if (null == newValue || null == putIfAbsent(key, newValue)) {
+                    return newValue;
+                }
+            } else if (null == newValue) {
+                if (remove(key, oldValue)) {
+                    return null;
+                }
+            } else if (replace(key, oldValue, newValue)) {
+                return newValue;
+            }
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(remappingFunction);
+        return compute(key, (k, oldValue) -> null == oldValue ? value : remappingFunction.apply(oldValue, value));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        final int hash = hash(key);
+        lock.lock();
+        try {
+            purgeLocked();
+            final Table tab = this.table;
+            final int i = tab.find(key, hash);
+            if (i < 0) {
+                return null;
+            }
+            final V old = (V) tab.values[i];
+            removeLocked(tab, i);
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (null == value) {
+            return false;
+        }
+        final int hash = hash(key);
+        lock.lock();
+        try {
+            purgeLocked();
+            final Table tab = this.table;
+            final int i = tab.find(key, hash);
+            if (i < 0 || false == value.equals(tab.values[i])) {
+                return false;
+            }
+            removeLocked(tab, i);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        final int hash = hash(key);
+        lock.lock();
+        try {
+            purgeLocked();
+            final Table tab = this.table;
+            final int i = tab.find(key, hash);
+            if (i < 0) {
+                return null;
+            }
+            final V old = (V) tab.values[i];
+            SLOTS.setRelease(tab.values, i, value);
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        final int hash = hash(key);
+        lock.lock();
+        try {
+            purgeLocked();
+            final Table tab = this.table;
+            final int i = tab.find(key, hash);
+            if (i < 0 || false == oldValue.equals(tab.values[i])) {
+                return false;
+            }
+            SLOTS.setRelease(tab.values, i, newValue);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            this.table = new Table(DEFAULT_CAPACITY);
+            this.size = 0;
+            this.tombstones = 0;
+            //noinspection StatementWithEmptyBody
+            while (queue.poll() != null) ;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清除已被回收的键
+     */
+    public void purge() {
+        lock.lock();
+        try {
+            purgeLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator(table);
+            }
+
+            @Override
+            public int size() {
+                return CompactWeakConcurrentMap.this.size();
+            }
+        };
+    }
+
+    // region ----- private methods
+
+    /**
+     * 在锁内插入新的键值对，必要时扩容或重建
+     *
+     * @param key   键
+     * @param hash  哈希值
+     * @param value 值
+     */
+    private void insertLocked(K key, int hash, V value) {
+        Table tab = this.table;
+        if (this.size + this.tombstones + 1 > tab.threshold()) {
+            tab = rebuildLocked(this.size + 1);
+        }
+        final int i = tab.emptySlot(hash);
+        // 先写入值和哈希，最后发布键，读线程看到键时值一定可见
+        tab.values[i] = value;
+        tab.hashes[i] = hash;
+        SLOTS.setRelease(tab.keys, i, new WeakKey<>(key, hash, queue));
+        this.size = this.size + 1;
+    }
+
+    /**
+     * 在锁内删除槽位，槽位标记为墓碑
+     *
+     * @param tab 表
+     * @param i   槽位
+     */
+    private void removeLocked(Table tab, int i) {
+        SLOTS.setRelease(tab.keys, i, TOMBSTONE);
+        SLOTS.setRelease(tab.values, i, null);
+        this.size = this.size - 1;
+        this.tombstones++;
+    }
+
+    /**
+     * 在锁内将存活的键值对复制到新表并发布，同时清除墓碑和已被回收的键
+     *
+     * @param expectedSize 预期的键值对数量
+     * @return 新表
+     */
+    private Table rebuildLocked(int expectedSize) {
+        final Table old = this.table;
+        final Table tab = new Table(capacityFor(expectedSize));
+        int live = 0;
+        for (int i = 0; i < old.keys.length; i++) {
+            final Object slot = old.keys[i];
+            if (slot instanceof WeakKey && null != ((WeakKey<?>) slot).get()) {
+                final int j = tab.emptySlot(old.hashes[i]);
+                tab.keys[j] = slot;
+                tab.hashes[j] = old.hashes[i];
+                tab.values[j] = old.values[i];
+                live++;
+            }
+        }
+        this.table = tab;
+        this.size = live;
+        this.tombstones = 0;
+        return tab;
+    }
+
+    /**
+     * 在锁内清除已被回收的键，键在重建时已被丢弃的忽略之
+     */
+    private void purgeLocked() {
+        Object ref;
+        while ((ref = queue.poll()) != null) {
+            final Table tab = this.table;
+            final int i = tab.findSlot(ref, ((WeakKey<?>) ref).hash);
+            if (i >= 0) {
+                removeLocked(tab, i);
+            }
+        }
+    }
+
+    /**
+     * 计算键的哈希值
+     *
+     * @param key 键
+     * @return 哈希值
+     */
+    private static int hash(Object key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 计算容纳指定数量键值对所需的容量，使负载因子不超过3/8，留出增长空间
+     *
+     * @param expectedSize 预期的键值对数量
+     * @return 容量，2的幂
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < MAXIMUM_CAPACITY && (long) capacity * 3 / 8 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * 哈希表，三个平行数组，发布后只有槽位内容会变化，长度不变
+     */
+    private static final class Table {
+        final int[] hashes;
+        final Object[] keys;
+        final Object[] values;
+
+        /**
+         * 构造
+         *
+         * @param capacity 容量，2的幂
+         */
+        Table(int capacity) {
+            this.hashes = new int[capacity];
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+        }
+
+        /**
+         * 扩容阈值，负载因子3/4（包括墓碑）
+         *
+         * @return 阈值
+         */
+        int threshold() {
+            return keys.length - (keys.length >>> 2);
+        }
+
+        /**
+         * 查找键所在的槽位，无锁读取
+         *
+         * @param key  键
+         * @param hash 哈希值
+         * @return 槽位，不存在返回-1
+         */
+        int find(Object key, int hash) {
+            final int mask = keys.length - 1;
+            for (int i = hash & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                final Object slot = SLOTS.getAcquire(keys, i);
+                if (null == slot) {
+                    return -1;
+                }
+                if (TOMBSTONE != slot && hashes[i] == hash) {
+                    final Object referent = ((WeakKey<?>) slot).get();
+                    if (referent == key || (null != referent && key.equals(referent))) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 查找指定弱引用对象所在的槽位
+         *
+         * @param ref  弱引用对象
+         * @param hash 哈希值
+         * @return 槽位，不存在返回-1
+         */
+        int findSlot(Object ref, int hash) {
+            final int mask = keys.length - 1;
+            for (int i = hash & mask, n = 0; n <= mask; i = (i + 1) & mask, n++) {
+                final Object slot = keys[i];
+                if (null == slot) {
+                    return -1;
+                }
+                if (slot == ref) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 查找第一个空槽位（墓碑不复用）
+         *
+         * @param hash 哈希值
+         * @return 槽位
+         */
+        int emptySlot(int hash) {
+            final int mask = keys.length - 1;
+            int i = hash & mask;
+            while (null != keys[i]) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * 弱键，保存哈希值用于在清除时定位槽位
+     *
+     * @param <K> 键类型
+     */
+    private static final class WeakKey<K> extends WeakReference<K> {
+        final int hash;
+
+        /**
+         * 构造
+         *
+         * @param key   原始Key，不能为{@code null}
+         * @param hash  哈希值
+         * @param queue {@link ReferenceQueue}
+         */
+        WeakKey(K key, int hash, ReferenceQueue<? super K> queue) {
+            super(key, queue);
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 遍历创建时的表快照，跳过墓碑和已被回收的键
+     */
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Table tab;
+        private int index;
+        private Entry<K, V> next;
+        private K lastKey;
+
+        /**
+         * 构造
+         *
+         * @param tab 表
+         */
+        EntryIterator(Table tab) {
+            this.tab = tab;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            final Entry<K, V> entry = this.next;
+            if (null == entry) {
+                throw new NoSuchElementException();
+            }
+            this.lastKey = entry.getKey();
+            advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (null == lastKey) {
+                throw new IllegalStateException();
+            }
+            CompactWeakConcurrentMap.this.remove(lastKey);
+            lastKey = null;
+        }
+
+        /**
+         * 移动到下一个存活的键值对
+         */
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            next = null;
+            while (index < tab.keys.length) {
+                final int i = index++;
+                final Object slot = SLOTS.getAcquire(tab.keys, i);
+                if (slot instanceof WeakKey) {
+                    final K key = ((WeakKey<K>) slot).get();
+                    final V value = (V) SLOTS.getAcquire(tab.values, i);
+                    if (null != key && null != value) {
+                        next = new SimpleImmutableEntry<>(key, value);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+    // endregion
+
+}
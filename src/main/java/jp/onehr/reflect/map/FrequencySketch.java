@@ -0,0 +1,158 @@
+package jp.onehr.reflect.map;
+
+import java.util.Arrays;
+
+/**
+ * 访问频率估算（Count-Min Sketch），每个计数器4位，最大计数15<br>
+ * 计数总数达到采样数量后所有计数器减半（老化），使频率反映近期的访问情况。<br>
+ * 参考：Caffeine FrequencySketch
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    /**
+     * 计数表的最大长度
+     */
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 24;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * 构造
+     *
+     * @param maximumSize 预期的最大元素数量
+     */
+    FrequencySketch(long maximumSize) {
+        final int length = tableSizeFor((int) Math.min(Math.max(maximumSize, 16), MAXIMUM_TABLE_SIZE));
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    /**
+     * 获取估算的访问频率
+     *
+     * @param hashCode 元素哈希值
+     * @return 频率，0~15
+     */
+    int frequency(int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 增加访问频率
+     *
+     * @param hashCode 元素哈希值
+     */
+    void increment(int hashCode) {
+        final int hash = spread(hashCode);
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 从另一个计数表复制元素的访问频率，用于扩容时保留已有元素的计数，已有计数不低于复制的频率时不变
+     *
+     * @param from     原计数表
+     * @param hashCode 元素哈希值
+     */
+    void copy(FrequencySketch from, int hashCode) {
+        final int target = from.frequency(hashCode);
+        for (int i = frequency(hashCode); i < target; i++) {
+            increment(hashCode);
+        }
+    }
+
+    /**
+     * 清空所有计数
+     */
+    void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    /**
+     * 指定计数器加一，已达到最大值时不变
+     *
+     * @param i 计数表下标
+     * @param j 计数器在long中的位置，0~15
+     * @return 是否增加
+     */
+    private boolean incrementAt(int i, int j) {
+        final int offset = j << 2;
+        final long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数器减半
+     */
+    private void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    /**
+     * 计算第i个哈希函数对应的计数表下标
+     *
+     * @param hash 哈希值
+     * @param i    哈希函数序号
+     * @return 下标
+     */
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += (h >>> 32);
+        return ((int) h) & tableMask;
+    }
+
+    /**
+     * 再次打散哈希值，弥补较差的hashCode实现
+     *
+     * @param x 哈希值
+     * @return 打散后的哈希值
+     */
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    /**
+     * 不小于给定值的2的幂
+     *
+     * @param x 值
+     * @return 2的幂
+     */
+    private static int tableSizeFor(int x) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(x - 1));
+    }
+
+}
@@ -0,0 +1,137 @@
+package jp.onehr.reflect.map;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * 回收监听的异步分发<br>
+ * 通知先放入有界队列，由{@link Executor}中的单个任务成批取出并依次调用监听，同一时刻最多一个任务在执行。
+ * 队列已满时由产生通知的线程直接调用监听（背压），积压不会无限增长，此时的通知可能早于队列中已有的通知送达。
+ * 监听的每次调用都持有同一把锁，因此监听不会被并发调用。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+final class PurgeDispatcher<K, V> implements Runnable {
+
+    /**
+     * 每批取出的通知数量
+     */
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * 默认的执行器，每个分发任务使用一个虚拟线程
+     */
+    static final Executor DEFAULT_EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ReferenceConcurrentMap-purge-", 0).factory());
+
+    private final BiConsumer<Reference<? extends K>, V> listener;
+    private final Executor executor;
+    private final BlockingQueue<Notification<K, V>> queue;
+    /**
+     * 是否已有分发任务提交或正在执行
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * 串行化监听调用，可重入以允许监听内部再次触发清理
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 构造
+     *
+     * @param listener      回收监听
+     * @param executor      执行分发任务的{@link Executor}
+     * @param queueCapacity 队列容量
+     */
+    PurgeDispatcher(BiConsumer<Reference<? extends K>, V> listener, Executor executor, int queueCapacity) {
+        this.listener = listener;
+        this.executor = executor;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * 分发一个通知
+     *
+     * @param reference 键
+     * @param value     值，已被回收时为{@code null}
+     */
+    void dispatch(Reference<? extends K> reference, V value) {
+        if (false == queue.offer(new Notification<>(reference, value))) {
+            // 队列已满，由当前线程调用，限制积压
+            notify(reference, value);
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                run();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        final List<Notification<K, V>> batch = new ArrayList<>(BATCH_SIZE);
+        do {
+            try {
+                while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+                    for (Notification<K, V> notification : batch) {
+                        notify(notification.reference, notification.value);
+                    }
+                    batch.clear();
+                }
+            } finally {
+                // 监听抛出Error时同样释放标记，之后的通知可以再次提交任务
+                scheduled.set(false);
+            }
+            // 释放标记后可能有新的通知入队而未提交任务，继续处理
+        } while (false == queue.isEmpty() && scheduled.compareAndSet(false, true));
+    }
+
+    /**
+     * 调用监听，异常交给当前线程的{@link Thread.UncaughtExceptionHandler}，不影响后续通知
+     *
+     * @param reference 键
+     * @param value     值
+     */
+    private void notify(Reference<? extends K> reference, V value) {
+        lock.lock();
+        try {
+            listener.accept(reference, value);
+        } catch (RuntimeException e) {
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 回收通知
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class Notification<K, V> {
+        final Reference<? extends K> reference;
+        final V value;
+
+        /**
+         * 构造
+         *
+         * @param reference 键
+         * @param value     值
+         */
+        Notification(Reference<? extends K> reference, V value) {
+            this.reference = reference;
+            this.value = value;
+        }
+    }
+
+}
@@ -1,20 +1,24 @@
 package jp.onehr.reflect.map;
 
+import jp.onehr.reflect.asserts.Assert;
+import jp.onehr.reflect.enums.PurgePolicyEnum;
 import jp.onehr.reflect.enums.ReferenceEnum;
+import jp.onehr.reflect.exceptions.ExceptionUtils;
 import jp.onehr.reflect.func.Func0;
-import jp.onehr.reflect.object.ObjectUtils;
 
+import java.io.Serial;
 import java.io.Serializable;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
 import java.util.*;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.*;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.ToIntBiFunction;
 
 /**
  * 线程安全的ReferenceMap实现<br>
@@ -25,13 +29,79 @@ import java.util.stream.Collectors;
  */
 public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterable<Map.Entry<K, V>>, Serializable {
 
+    /**
+     * 默认的平摊清除间隔（操作次数）
+     */
+    private static final int DEFAULT_PURGE_INTERVAL = 64;
+    /**
+     * 过期时长的上限（约146年），保证时间差计算不溢出
+     */
+    private static final long MAXIMUM_DURATION = Long.MAX_VALUE >>> 1;
+
     final ConcurrentMap<Reference<K>, V> raw;
     private final ReferenceQueue<K> lastQueue;
+    /**
+     * 值的引用队列，值为强引用时为{@code null}
+     */
+    private transient final ReferenceQueue<Object> valueQueue;
     private final ReferenceEnum keyType;
+    private final ReferenceEnum valueType;
+    /**
+     * 是否按对象标识（==和{@link System#identityHashCode(Object)}）比较键
+     */
+    private final boolean identity;
     /**
      * 回收监听
      */
     private BiConsumer<Reference<? extends K>, V> purgeListener;
+    /**
+     * 回收监听的异步分发，{@code null}表示在清除的线程中同步调用
+     */
+    private transient PurgeDispatcher<K, V> purgeDispatcher;
+    /**
+     * 被回收键的清除策略
+     */
+    private volatile PurgePolicyEnum purgePolicy = PurgePolicyEnum.EVERY_OPERATION;
+    /**
+     * {@link PurgePolicyEnum#AMORTIZED}策略下的清除间隔（操作次数）
+     */
+    private volatile int purgeInterval = DEFAULT_PURGE_INTERVAL;
+    /**
+     * 操作计数，非精确，并发下丢失的计数只会推迟清除
+     */
+    private int operationCount;
+    /**
+     * 容量限制策略，{@code null}表示不限制
+     */
+    private transient volatile BoundedPolicy<K> boundedPolicy;
+    /**
+     * 权重计算函数，{@code null}表示每个键值对权重为1
+     */
+    private transient ToIntBiFunction<? super K, ? super V> weigher;
+    /**
+     * 过期时间轮，{@code null}表示未启用过期
+     */
+    private transient volatile TimerWheel<K> timerWheel;
+    /**
+     * 写入后过期时长，单位纳秒，0表示不过期
+     */
+    private volatile long expireAfterWriteNanos;
+    /**
+     * 访问后过期时长，单位纳秒，0表示不过期
+     */
+    private volatile long expireAfterAccessNanos;
+    /**
+     * 时间源
+     */
+    private transient Ticker ticker = Ticker.systemTicker();
+    /**
+     * 加载中的键 -> 加载结果的占位，用于{@link #load(Object, Function)}
+     */
+    private transient final ConcurrentHashMap<Object, LoadingFuture<V>> loading = new ConcurrentHashMap<>();
+    /**
+     * 统计计数器，{@code null}表示不统计
+     */
+    private transient volatile StatsCounter statsCounter;
 
     // region 构造
 
@@ -42,24 +112,229 @@ public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterab
      * @param referenceEnum Reference类型
      */
     public ReferenceConcurrentMap(ConcurrentMap<Reference<K>, V> raw, ReferenceEnum referenceEnum) {
+        this(raw, referenceEnum, false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param raw           {@link ConcurrentMap}实现
+     * @param referenceEnum Reference类型
+     * @param identity      是否按对象标识（==和{@link System#identityHashCode(Object)}）比较键，而非equals和hashCode
+     */
+    public ReferenceConcurrentMap(ConcurrentMap<Reference<K>, V> raw, ReferenceEnum referenceEnum, boolean identity) {
+        this(raw, referenceEnum, ReferenceEnum.STRONG, identity);
+    }
+
+    /**
+     * 构造
+     *
+     * @param raw       {@link ConcurrentMap}实现
+     * @param keyType   键的引用类型，支持{@link ReferenceEnum#STRONG}、{@link ReferenceEnum#WEAK}、{@link ReferenceEnum#SOFT}
+     * @param valueType 值的引用类型，支持{@link ReferenceEnum#STRONG}、{@link ReferenceEnum#WEAK}、{@link ReferenceEnum#SOFT}
+     * @param identity  是否按对象标识（==和{@link System#identityHashCode(Object)}）比较键，而非equals和hashCode
+     */
+    public ReferenceConcurrentMap(ConcurrentMap<Reference<K>, V> raw, ReferenceEnum keyType, ReferenceEnum valueType, boolean identity) {
+        Assert.notNull(keyType);
+        Assert.notNull(valueType);
+        if (ReferenceEnum.PHANTOM == keyType || ReferenceEnum.PHANTOM == valueType) {
+            throw new IllegalArgumentException("Unsupported reference type: " + ReferenceEnum.PHANTOM);
+        }
         this.raw = raw;
-        this.keyType = referenceEnum;
+        this.keyType = keyType;
+        this.valueType = valueType;
+        this.identity = identity;
         lastQueue = new ReferenceQueue<>();
+        valueQueue = ReferenceEnum.STRONG == valueType ? null : new ReferenceQueue<>();
     }
     // endregion
 
     /**
-     * 设置对象回收清除监听
+     * 设置对象回收清除监听<br>
+     * 值被GC回收时，监听收到的值为{@code null}。
      *
      * @param purgeListener 监听函数
      */
     public void setPurgeListener(BiConsumer<Reference<? extends K>, V> purgeListener) {
         this.purgeListener = purgeListener;
+        this.purgeDispatcher = null;
+    }
+
+    /**
+     * 设置对象回收清除监听，在虚拟线程中成批异步调用，队列容量为1024，见{@link #setAsyncPurgeListener(BiConsumer, Executor, int)}
+     *
+     * @param purgeListener 监听函数
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setAsyncPurgeListener(BiConsumer<Reference<? extends K>, V> purgeListener) {
+        return setAsyncPurgeListener(purgeListener, PurgeDispatcher.DEFAULT_EXECUTOR, 1024);
+    }
+
+    /**
+     * 设置对象回收清除监听，在指定的{@link Executor}中成批异步调用，耗时的监听不会增加读写操作的延迟<br>
+     * 监听不会被并发调用。通知积压超过队列容量时，由产生通知的线程直接调用监听，限制内存占用。
+     *
+     * @param purgeListener 监听函数
+     * @param executor      执行监听的{@link Executor}
+     * @param queueCapacity 通知队列容量
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setAsyncPurgeListener(BiConsumer<Reference<? extends K>, V> purgeListener,
+                                                              Executor executor, int queueCapacity) {
+        Assert.notNull(purgeListener);
+        Assert.notNull(executor);
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+        }
+        this.purgeDispatcher = new PurgeDispatcher<>(purgeListener, executor, queueCapacity);
+        this.purgeListener = purgeListener;
+        return this;
+    }
+
+    /**
+     * 设置被回收键的清除策略，默认为{@link PurgePolicyEnum#EVERY_OPERATION}<br>
+     * 使用{@link PurgePolicyEnum#BACKGROUND}时，被回收的键在清除前仍计入{@link #size()}。
+     *
+     * @param purgePolicy 清除策略
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setPurgePolicy(PurgePolicyEnum purgePolicy) {
+        return setPurgePolicy(purgePolicy, DEFAULT_PURGE_INTERVAL);
+    }
+
+    /**
+     * 设置被回收键的清除策略
+     *
+     * @param purgePolicy   清除策略
+     * @param purgeInterval {@link PurgePolicyEnum#AMORTIZED}策略下每多少次操作清除一次，其它策略忽略此参数
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setPurgePolicy(PurgePolicyEnum purgePolicy, int purgeInterval) {
+        Assert.notNull(purgePolicy);
+        if (purgeInterval < 1) {
+            throw new IllegalArgumentException("Purge interval must be positive: " + purgeInterval);
+        }
+        this.purgeInterval = purgeInterval;
+        this.purgePolicy = purgePolicy;
+        if (PurgePolicyEnum.BACKGROUND == purgePolicy) {
+            ReferencePurger.register(this);
+        } else {
+            ReferencePurger.unregister(this);
+        }
+        return this;
+    }
+
+    /**
+     * 设置最大键值对数量，超出时按W-TinyLFU策略驱逐：优先驱逐访问频率低的键<br>
+     * 被驱逐的键值对通过{@link #setPurgeListener(BiConsumer)}设置的监听通知，
+     * 此时{@link Reference#get()}仍返回原始键，可据此与被GC回收的键区分。
+     *
+     * @param maximumSize 最大键值对数量
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setMaximumSize(long maximumSize) {
+        return setMaximumWeight(maximumSize, null);
+    }
+
+    /**
+     * 设置最大权重，超出时按W-TinyLFU策略驱逐：优先驱逐访问频率低的键<br>
+     * 被驱逐的键值对通过{@link #setPurgeListener(BiConsumer)}设置的监听通知。已有的键值对同样计入。
+     *
+     * @param maximumWeight 最大权重
+     * @param weigher       权重计算函数，{@code null}表示每个键值对权重为1，返回负数时按0计算
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setMaximumWeight(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximum weight must not be negative: " + maximumWeight);
+        }
+        this.weigher = weigher;
+        this.boundedPolicy = new BoundedPolicy<>(maximumWeight, null != weigher);
+        this.raw.forEach((reference, stored) -> reweigh(reference));
+        return this;
+    }
+
+    /**
+     * 设置写入后过期时间，键值对在写入（新增或更新）后经过指定时间过期<br>
+     * 过期的键值对不再被读取到，并按{@link #setPurgePolicy(PurgePolicyEnum)}设置的清除策略从Map中删除，
+     * 删除时通过{@link #setPurgeListener(BiConsumer)}设置的监听通知。只对之后写入的键值对生效。
+     *
+     * @param duration 时长，0表示不过期
+     * @param unit     时间单位
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setExpireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = toNanos(duration, unit);
+        ensureTimerWheel();
+        return this;
+    }
+
+    /**
+     * 设置访问后过期时间，键值对在最后一次读取或写入后经过指定时间过期<br>
+     * 与{@link #setExpireAfterWrite(long, TimeUnit)}同时设置时，以先到期的为准。只对之后写入的键值对生效。
+     *
+     * @param duration 时长，0表示不过期
+     * @param unit     时间单位
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setExpireAfterAccess(long duration, TimeUnit unit) {
+        this.expireAfterAccessNanos = toNanos(duration, unit);
+        ensureTimerWheel();
+        return this;
+    }
+
+    /**
+     * 设置计算过期时间使用的时间源，默认为{@link Ticker#systemTicker()}，须在设置过期时间之前调用
+     *
+     * @param ticker 时间源
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> setTicker(Ticker ticker) {
+        Assert.notNull(ticker);
+        if (null != this.timerWheel) {
+            throw new IllegalStateException("Ticker must be set before expiration is enabled");
+        }
+        this.ticker = ticker;
+        return this;
+    }
+
+    /**
+     * 取消{@link #setMaximumSize(long)}或{@link #setMaximumWeight(long, ToIntBiFunction)}设置的容量限制
+     *
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> clearMaximumWeight() {
+        this.boundedPolicy = null;
+        this.weigher = null;
+        return this;
+    }
+
+    /**
+     * 启用统计：命中、未命中、加载耗时和清除次数，通过{@link #stats()}获取
+     *
+     * @return this
+     */
+    public ReferenceConcurrentMap<K, V> recordStats() {
+        if (null == this.statsCounter) {
+            this.statsCounter = new StatsCounter();
+        }
+        return this;
+    }
+
+    /**
+     * 获取统计快照，未启用统计时各计数为0
+     *
+     * @return {@link CacheStats}
+     */
+    public CacheStats stats() {
+        final StatsCounter stats = this.statsCounter;
+        final long size = this.raw.size();
+        return null == stats ? new CacheStats(0, 0, 0, 0, 0, 0, size) : stats.snapshot(size);
     }
 
     @Override
     public int size() {
-        this.purgeStaleKeys();
+        this.beforeRead();
         return this.raw.size();
     }
 
@@ -70,34 +345,80 @@ public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterab
 
     @Override
     public V get(Object key) {
-        this.purgeStaleKeys();
-        //noinspection unchecked
-        return this.raw.get(ofKey((K) key, null));
+        return get(key, true);
     }
 
     @Override
     public boolean containsKey(Object key) {
-        this.purgeStaleKeys();
-        //noinspection unchecked
-        return this.raw.containsKey(ofKey((K) key, null));
+        final long now = this.beforeRead();
+        final Object lookupKey = ofLookupKey(key);
+        if (isPlain()) {
+            return this.raw.containsKey(lookupKey);
+        }
+        return null != valueOf(lookupKey, this.raw.get(lookupKey), now);
     }
 
     @Override
     public boolean containsValue(Object value) {
-        this.purgeStaleKeys();
-        return this.raw.containsValue(value);
+        final long now = this.beforeRead();
+        if (isPlain()) {
+            return this.raw.containsValue(value);
+        }
+        for (Entry<Reference<K>, V> entry : this.raw.entrySet()) {
+            if (value.equals(valueOf(entry.getKey(), entry.getValue(), now))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
     public V put(K key, V value) {
-        this.purgeStaleKeys();
-        return this.raw.put(ofKey(key, this.lastQueue), value);
+        return put(key, value, 0);
+    }
+
+    /**
+     * 加入键值对，并指定此键值对的过期时间，不受{@link #setExpireAfterWrite(long, TimeUnit)}、
+     * {@link #setExpireAfterAccess(long, TimeUnit)}影响，读取也不会延长
+     *
+     * @param key      键
+     * @param value    值
+     * @param duration 时长，必须大于0
+     * @param unit     时间单位
+     * @return 旧值，不存在或已过期返回{@code null}
+     */
+    public V put(K key, V value, long duration, TimeUnit unit) {
+        final long nanos = toNanos(duration, unit);
+        if (0 == nanos) {
+            throw new IllegalArgumentException("Duration must be positive: " + duration);
+        }
+        ensureTimerWheel();
+        return put(key, value, nanos);
     }
 
     @Override
     public V putIfAbsent(K key, V value) {
-        this.purgeStaleKeys();
-        return this.raw.putIfAbsent(ofKey(key, this.lastQueue), value);
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final V old;
+        if (isPlain()) {
+            old = this.raw.putIfAbsent(reference, value);
+        } else {
+            // 值已被回收或已过期的视为不存在
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            final int weight = weigh(key, value);
+            this.raw.compute(reference, (kRef, stored) -> {
+                holder.value = valueOf(kRef, stored, now);
+                if (null != holder.value) {
+                    return stored;
+                }
+                holder.victims = recordWrite(kRef, weight);
+                return store(kRef, value, now, 0);
+            });
+            old = holder.value;
+            evict(holder.victims);
+        }
+        return old;
     }
 
     @Override
@@ -107,32 +428,110 @@ public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterab
 
     @Override
     public V replace(K key, V value) {
-        this.purgeStaleKeys();
-        return this.raw.replace(ofKey(key, this.lastQueue), value);
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final V old;
+        if (isPlain()) {
+            old = this.raw.replace(reference, value);
+        } else {
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            final int weight = weigh(key, value);
+            this.raw.computeIfPresent(reference, (kRef, stored) -> {
+                holder.value = valueOf(kRef, stored, now);
+                if (null == holder.value) {
+                    return stored;
+                }
+                holder.victims = recordWrite(kRef, weight);
+                return store(kRef, value, now, 0);
+            });
+            old = holder.value;
+            evict(holder.victims);
+        }
+        return old;
     }
 
     @Override
     public boolean replace(K key, V oldValue, V newValue) {
-        this.purgeStaleKeys();
-        return this.raw.replace(ofKey(key, this.lastQueue), oldValue, newValue);
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final boolean replaced;
+        if (isPlain()) {
+            replaced = this.raw.replace(reference, oldValue, newValue);
+        } else {
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            final int weight = weigh(key, newValue);
+            this.raw.computeIfPresent(reference, (kRef, stored) -> {
+                final V current = valueOf(kRef, stored, now);
+                if (null != current && current.equals(oldValue)) {
+                    holder.value = current;
+                    holder.victims = recordWrite(kRef, weight);
+                    return store(kRef, newValue, now, 0);
+                }
+                return stored;
+            });
+            replaced = null != holder.value;
+            evict(holder.victims);
+        }
+        return replaced;
     }
 
     @Override
     public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
-        this.purgeStaleKeys();
-        this.raw.replaceAll((kWeakKey, value) -> function.apply(kWeakKey.get(), value));
+        final long now = this.beforeWrite();
+        this.raw.replaceAll((kRef, stored) -> {
+            final V value = valueOf(kRef, stored, now);
+            return null == value ? stored : store(kRef, function.apply(kRef.get(), value), now, 0);
+        });
+        if (null != this.boundedPolicy) {
+            // 值变化后权重可能变化
+            this.raw.forEach((reference, stored) -> reweigh(reference));
+        }
     }
 
     @Override
     public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.computeIfAbsent(ofKey(key, this.lastQueue), kWeakKey -> mappingFunction.apply(key));
+        // 已存在时只做查找，不创建Reference，也不视为写入
+        final V value = get(key);
+        if (null != value) {
+            return value;
+        }
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final V newValue;
+        if (isPlain()) {
+            newValue = this.raw.computeIfAbsent(reference, kRef -> loadValue(key, mappingFunction));
+        } else {
+            // 值已被回收或已过期时重新计算
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            this.raw.compute(reference, (kRef, stored) -> {
+                holder.value = valueOf(kRef, stored, now);
+                if (null != holder.value) {
+                    return stored;
+                }
+                holder.value = loadValue(key, mappingFunction);
+                return afterCompute(kRef, stored, holder, now);
+            });
+            newValue = holder.value;
+            evict(holder.victims);
+        }
+        return newValue;
     }
 
     @Override
     public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.computeIfPresent(ofKey(key, this.lastQueue), (kWeakKey, value) -> remappingFunction.apply(key, value));
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final ValueHolder<K, V> holder = new ValueHolder<>();
+        this.raw.computeIfPresent(reference, (kRef, stored) -> {
+            final V value = valueOf(kRef, stored, now);
+            if (null == value) {
+                return stored;
+            }
+            holder.value = remappingFunction.apply(key, value);
+            return afterCompute(kRef, stored, holder, now);
+        });
+        evict(holder.victims);
+        return holder.value;
     }
 
     /**
@@ -146,77 +545,245 @@ public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterab
         return computeIfAbsent(key, (keyParam) -> supplier.callWithRuntimeException());
     }
 
+    /**
+     * 获取值，不存在时加载（single-flight）：同一个键同时只有一个线程执行加载函数，其它线程等待并共享结果<br>
+     * 与{@link #computeIfAbsent(Object, Function)}不同，加载函数在raw的锁之外执行，
+     * 耗时的加载不会阻塞哈希到同一个桶的其它键，也不会使虚拟线程被固定（pin）在载体线程上。<br>
+     * 加载函数在当前线程执行，返回{@code null}时不缓存，抛出的异常传递给所有等待的线程。
+     *
+     * @param key    键
+     * @param loader 加载函数
+     * @return 值，加载函数返回{@code null}时返回{@code null}
+     * @throws IllegalStateException 加载函数中递归加载同一个键
+     */
+    public V load(K key, Function<? super K, ? extends V> loader) {
+        final V value = get(key);
+        if (null != value) {
+            return value;
+        }
+        try {
+            return load(key, loader, null).join();
+        } catch (CompletionException e) {
+            final Throwable cause = null == e.getCause() ? e : e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ExceptionUtils.wrapRuntime(cause);
+        }
+    }
+
+    /**
+     * 获取值，不存在时加载（single-flight），见{@link #load(Object, Function)}
+     *
+     * @param key      键
+     * @param supplier 加载函数
+     * @return 值，加载函数返回{@code null}时返回{@code null}
+     */
+    public V load(K key, Func0<? extends V> supplier) {
+        return load(key, (keyParam) -> supplier.callWithRuntimeException());
+    }
+
+    /**
+     * 异步获取值，不存在时在指定的{@link Executor}中加载（single-flight），不阻塞当前线程<br>
+     * 同一个键同时只有一次加载，正在加载时返回同一个{@link CompletableFuture}。
+     *
+     * @param key      键
+     * @param loader   加载函数
+     * @param executor 执行加载函数的{@link Executor}
+     * @return 值的{@link CompletableFuture}，加载函数返回{@code null}时结果为{@code null}
+     */
+    public CompletableFuture<V> loadAsync(K key, Function<? super K, ? extends V> loader, Executor executor) {
+        Assert.notNull(executor);
+        final V value = get(key);
+        if (null != value) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return load(key, loader, executor);
+    }
+
+    /**
+     * 异步获取值，不存在时在{@link ForkJoinPool#commonPool()}中加载（single-flight），见{@link #loadAsync(Object, Function, Executor)}
+     *
+     * @param key    键
+     * @param loader 加载函数
+     * @return 值的{@link CompletableFuture}，加载函数返回{@code null}时结果为{@code null}
+     */
+    public CompletableFuture<V> loadAsync(K key, Function<? super K, ? extends V> loader) {
+        return loadAsync(key, loader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 注册加载中的占位{@link CompletableFuture}并执行加载，同一个键已在加载时返回已有的占位
+     *
+     * @param key      键
+     * @param loader   加载函数
+     * @param executor 执行加载函数的{@link Executor}，{@code null}表示在当前线程执行
+     * @return 值的{@link CompletableFuture}
+     */
+    private CompletableFuture<V> load(K key, Function<? super K, ? extends V> loader, Executor executor) {
+        Assert.notNull(loader);
+        final Object loadingKey = ofKey(key, null);
+        final LoadingFuture<V> future = new LoadingFuture<>();
+        final LoadingFuture<V> existing = this.loading.putIfAbsent(loadingKey, future);
+        if (null != existing) {
+            if (null == executor && existing.thread == Thread.currentThread() && false == existing.isDone()) {
+                throw new IllegalStateException("Recursive load of key: " + key);
+            }
+            return existing;
+        }
+        final Runnable task = () -> {
+            future.thread = Thread.currentThread();
+            try {
+                // 注册占位前其它线程可能已加载完成
+                V value = get(key, false);
+                if (null == value) {
+                    value = loadValue(key, loader);
+                    if (null != value) {
+                        final V old = putIfAbsent(key, value);
+                        if (null != old) {
+                            value = old;
+                        }
+                    }
+                }
+                future.complete(value);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                this.loading.remove(loadingKey, future);
+            }
+        };
+        if (null == executor) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                this.loading.remove(loadingKey, future);
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public V remove(Object key) {
-        this.purgeStaleKeys();
-        //noinspection unchecked
-        return this.raw.remove(ofKey((K) key, null));
+        final long now = this.beforeWrite();
+        final Object lookupKey = ofLookupKey(key);
+        final V stored;
+        if (null == this.boundedPolicy) {
+            stored = this.raw.remove(lookupKey);
+        } else {
+            // 在raw的compute中同步更新容量限制策略，与同一个键的写入互斥
+            final Reference<K> reference = ofKey((K) key, null);
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            this.raw.computeIfPresent(reference, (kRef, removed) -> {
+                holder.value = removed;
+                recordRemove(kRef);
+                return null;
+            });
+            stored = holder.value;
+        }
+        if (null == stored) {
+            return null;
+        }
+        final V value = valueOf(lookupKey, stored, now);
+        afterRemove(lookupKey);
+        return value;
     }
 
     @Override
     public boolean remove(Object key, Object value) {
-        this.purgeStaleKeys();
-        //noinspection unchecked
-        return this.raw.remove(ofKey((K) key, null), value);
+        final long now = this.beforeWrite();
+        final Object lookupKey = ofLookupKey(key);
+        final boolean removed;
+        if (isPlain()) {
+            removed = this.raw.remove(lookupKey, value);
+        } else {
+            //noinspection unchecked
+            final Reference<K> reference = ofKey((K) key, null);
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            this.raw.computeIfPresent(reference, (kRef, stored) -> {
+                final V current = valueOf(kRef, stored, now);
+                if (null != current && current.equals(value)) {
+                    holder.value = current;
+                    recordRemove(kRef);
+                    return null;
+                }
+                return stored;
+            });
+            removed = null != holder.value;
+        }
+        if (removed) {
+            afterRemove(lookupKey);
+        }
+        return removed;
     }
 
     @Override
     public void clear() {
         this.raw.clear();
+        final BoundedPolicy<K> policy = this.boundedPolicy;
+        if (null != policy) {
+            policy.clear();
+        }
+        final TimerWheel<K> wheel = this.timerWheel;
+        if (null != wheel) {
+            wheel.clear();
+        }
         //noinspection StatementWithEmptyBody
         while (lastQueue.poll() != null) ;
+        if (null != valueQueue) {
+            //noinspection StatementWithEmptyBody
+            while (valueQueue.poll() != null) ;
+        }
     }
 
+    /**
+     * 键的视图，不复制，弱一致：迭代期间的修改可能可见也可能不可见，不抛出{@link ConcurrentModificationException}<br>
+     * 被回收或已过期的键值对被跳过。
+     *
+     * @return 键的视图
+     */
     @Override
     public Set<K> keySet() {
-        return new AbstractSet<>() {
-            @Override
-            public Iterator<K> iterator() {
-                return new Iterator<>() {
-                    private final Iterator<Reference<K>> it = raw.keySet().iterator();
-
-                    @Override
-                    public boolean hasNext() {
-                        return it.hasNext();
-                    }
-
-                    @Override
-                    public K next() {
-                        return it.next().get() != null ? it.next().get() : null;
-                    }
-
-                    @Override
-                    public void remove() {
-                        it.remove();
-                    }
-                };
-            }
-
-            @Override
-            public int size() {
-                return raw.size();
-            }
-        };
+        this.beforeRead();
+        return new KeySetView();
     }
 
+    /**
+     * 值的视图，不复制，弱一致，被回收或已过期的键值对被跳过
+     *
+     * @return 值的视图
+     */
     @Override
     public Collection<V> values() {
-        this.purgeStaleKeys();
-        return this.raw.values();
+        this.beforeRead();
+        return new ValuesView();
     }
 
+    /**
+     * 键值对的视图，不复制，弱一致，被回收或已过期的键值对被跳过<br>
+     * 键值对的{@link Entry#setValue(Object)}写入Map。
+     *
+     * @return 键值对的视图
+     */
     @Override
     public Set<Entry<K, V>> entrySet() {
-        this.purgeStaleKeys();
-        return this.raw.entrySet().stream()
-                .map(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey().get(), entry.getValue()))
-                .collect(Collectors.toSet());
+        this.beforeRead();
+        return new EntrySetView();
     }
 
     @Override
     public void forEach(BiConsumer<? super K, ? super V> action) {
-        this.purgeStaleKeys();
-        this.raw.forEach((key, value) -> action.accept(key.get(), value));
+        final long now = this.beforeRead();
+        this.raw.forEach((reference, stored) -> {
+            final K key = reference.get();
+            final V value = valueOf(reference, stored, now);
+            if (null != key && null != value) {
+                action.accept(key, value);
+            }
+        });
     }
 
     @Override
@@ -226,97 +793,878 @@ public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterab
 
     @Override
     public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.compute(ofKey(key, this.lastQueue), (kWeakKey, value) -> remappingFunction.apply(key, value));
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final ValueHolder<K, V> holder = new ValueHolder<>();
+        this.raw.compute(reference, (kRef, stored) -> {
+            holder.value = remappingFunction.apply(key, valueOf(kRef, stored, now));
+            return afterCompute(kRef, stored, holder, now);
+        });
+        evict(holder.victims);
+        return holder.value;
     }
 
     @Override
     public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
-        this.purgeStaleKeys();
-        return this.raw.merge(ofKey(key, this.lastQueue), value, remappingFunction);
+        Assert.notNull(value);
+        Assert.notNull(remappingFunction);
+        return compute(key, (k, oldValue) -> null == oldValue ? value : remappingFunction.apply(oldValue, value));
     }
 
+    // region 批量操作
+
     /**
-     * 清除被回收的键
+     * 遍历所有键值对，raw为{@link ConcurrentHashMap}时并行执行，否则顺序执行<br>
+     * 被回收或已过期的键值对被跳过。
+     *
+     * @param parallelismThreshold 并行阈值，键值对数量不少于此值时才拆分并行，{@link Long#MAX_VALUE}表示不并行，1表示最大并行
+     * @param action               处理函数，须线程安全
      */
-    private void purgeStaleKeys() {
-        Reference<? extends K> reference;
-        V value;
-        while ((reference = this.lastQueue.poll()) != null) {
-            value = this.raw.remove(reference);
-            if (null != purgeListener) {
-                purgeListener.accept(reference, value);
+    public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+        Assert.notNull(action);
+        final long now = this.beforeRead();
+        final BiConsumer<Reference<K>, V> consumer = (reference, stored) -> {
+            final K key = reference.get();
+            final V value = valueOf(reference, stored, now);
+            if (null != key && null != value) {
+                action.accept(key, value);
             }
+        };
+        if (this.raw instanceof ConcurrentHashMap) {
+            ((ConcurrentHashMap<Reference<K>, V>) this.raw).forEach(parallelismThreshold, consumer);
+        } else {
+            this.raw.forEach(consumer);
         }
     }
 
     /**
-     * 根据Reference类型构建key对应的{@link Reference}
+     * 归约所有键值对，raw为{@link ConcurrentHashMap}时并行执行，否则顺序执行<br>
+     * 被回收或已过期的键值对被跳过。
      *
-     * @param key   键
-     * @param queue {@link ReferenceQueue}
-     * @return {@link Reference}
+     * @param parallelismThreshold 并行阈值，键值对数量不少于此值时才拆分并行，{@link Long#MAX_VALUE}表示不并行，1表示最大并行
+     * @param transformer          键值对的转换函数，返回{@code null}表示跳过此键值对
+     * @param reducer              合并函数，须满足结合律
+     * @param <U>                  结果类型
+     * @return 归约结果，没有可归约的键值对时返回{@code null}
      */
-    private Reference<K> ofKey(K key, ReferenceQueue<? super K> queue) {
-        return switch (keyType) {
-            case WEAK -> new WeakKey<>(key, queue);
-            case SOFT -> new SoftKey<>(key, queue);
-            default -> throw new IllegalArgumentException("Unsupported key type: " + keyType);
+    public <U> U reduce(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> transformer,
+                        BiFunction<? super U, ? super U, ? extends U> reducer) {
+        Assert.notNull(transformer);
+        Assert.notNull(reducer);
+        final long now = this.beforeRead();
+        final BiFunction<Reference<K>, V, U> function = (reference, stored) -> {
+            final K key = reference.get();
+            final V value = valueOf(reference, stored, now);
+            return null == key || null == value ? null : transformer.apply(key, value);
         };
+        if (this.raw instanceof ConcurrentHashMap) {
+            return ((ConcurrentHashMap<Reference<K>, V>) this.raw).reduce(parallelismThreshold, function, reducer);
+        }
+        U result = null;
+        for (Entry<Reference<K>, V> entry : this.raw.entrySet()) {
+            final U u = function.apply(entry.getKey(), entry.getValue());
+            if (null != u) {
+                result = null == result ? u : reducer.apply(result, u);
+            }
+        }
+        return result;
     }
 
     /**
-     * 弱键
+     * 查找第一个使搜索函数返回非{@code null}的键值对，找到后其余的搜索会尽快停止，
+     * raw为{@link ConcurrentHashMap}时并行执行，否则顺序执行<br>
+     * 并行时“第一个”不确定。被回收或已过期的键值对被跳过。
      *
-     * @param <K> 键类型
+     * @param parallelismThreshold 并行阈值，键值对数量不少于此值时才拆分并行，{@link Long#MAX_VALUE}表示不并行，1表示最大并行
+     * @param searchFunction       搜索函数，返回非{@code null}表示找到
+     * @param <U>                  结果类型
+     * @return 搜索函数的结果，未找到返回{@code null}
      */
-    private static class WeakKey<K> extends WeakReference<K> {
-        private final int hashCode;
-
-        /**
-         * 构造
-         *
-         * @param key   原始Key，不能为{@code null}
-         * @param queue {@link ReferenceQueue}
-         */
-        WeakKey(K key, ReferenceQueue<? super K> queue) {
-            super(key, queue);
-            hashCode = key.hashCode();
+    public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+        Assert.notNull(searchFunction);
+        final long now = this.beforeRead();
+        final BiFunction<Reference<K>, V, U> function = (reference, stored) -> {
+            final K key = reference.get();
+            final V value = valueOf(reference, stored, now);
+            return null == key || null == value ? null : searchFunction.apply(key, value);
+        };
+        if (this.raw instanceof ConcurrentHashMap) {
+            return ((ConcurrentHashMap<Reference<K>, V>) this.raw).search(parallelismThreshold, function);
+        }
+        for (Entry<Reference<K>, V> entry : this.raw.entrySet()) {
+            final U u = function.apply(entry.getKey(), entry.getValue());
+            if (null != u) {
+                return u;
+            }
         }
+        return null;
+    }
 
-        @Override
-        public int hashCode() {
-            return hashCode;
+    /**
+     * 对所有键值对重新计算值，每个键值对的计算是原子的，raw为{@link ConcurrentHashMap}时并行执行，否则顺序执行<br>
+     * 被回收或已过期的键值对被跳过；计算结果为{@code null}时删除此键值对。
+     *
+     * @param parallelismThreshold 并行阈值，键值对数量不少于此值时才拆分并行，{@link Long#MAX_VALUE}表示不并行，1表示最大并行
+     * @param remappingFunction    计算函数，须线程安全
+     */
+    public void computeAll(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Assert.notNull(remappingFunction);
+        final long now = this.beforeWrite();
+        final BiConsumer<Reference<K>, V> consumer = (reference, stored) -> recompute(reference, remappingFunction, now);
+        if (this.raw instanceof ConcurrentHashMap) {
+            ((ConcurrentHashMap<Reference<K>, V>) this.raw).forEach(parallelismThreshold, consumer);
+        } else {
+            this.raw.forEach(consumer);
         }
+    }
 
-        @Override
-        public boolean equals(Object other) {
-            if (other == this) {
-                return true;
-            } else if (other instanceof WeakKey) {
-                return ObjectUtils.equals(((WeakKey<?>) other).get(), get());
+    /**
+     * 重新计算raw中已有键的值
+     *
+     * @param reference         raw中保存的键
+     * @param remappingFunction 计算函数
+     * @param now               当前时间
+     */
+    private void recompute(Reference<K> reference, BiFunction<? super K, ? super V, ? extends V> remappingFunction, long now) {
+        final ValueHolder<K, V> holder = new ValueHolder<>();
+        this.raw.computeIfPresent(reference, (kRef, stored) -> {
+            final K key = kRef.get();
+            final V value = valueOf(kRef, stored, now);
+            if (null == key || null == value) {
+                return stored;
             }
-            return false;
+            holder.value = remappingFunction.apply(key, value);
+            if (null == holder.value) {
+                holder.removed = true;
+            }
+            return afterCompute(kRef, stored, holder, now);
+        });
+        if (holder.removed) {
+            afterRemove(reference);
         }
+        evict(holder.victims);
     }
+    // endregion
 
     /**
-     * 弱键
+     * 获取值
      *
-     * @param <K> 键类型
+     * @param key         键
+     * @param recordStats 是否计入命中统计
+     * @return 值，不存在、已被回收或已过期返回{@code null}
      */
-    private static class SoftKey<K> extends SoftReference<K> {
-        private final int hashCode;
-
+    private V get(Object key, boolean recordStats) {
+        final long now = this.beforeRead();
+        final Object lookupKey = ofLookupKey(key);
+        final BoundedPolicy<K> policy = this.boundedPolicy;
+        if (null != policy) {
+            policy.recordRead(lookupKey);
+        }
+        V value = unwrap(this.raw.get(lookupKey));
+        final TimerWheel<K> wheel = this.timerWheel;
+        if (null != value && null != wheel) {
+            if (wheel.isExpired(lookupKey, now)) {
+                value = null;
+            } else {
+                final long expireAfterAccess = this.expireAfterAccessNanos;
+                if (expireAfterAccess > 0) {
+                    wheel.touch(lookupKey, now + expireAfterAccess);
+                }
+            }
+        }
+        final StatsCounter stats = this.statsCounter;
+        if (recordStats && null != stats) {
+            if (null == value) {
+                stats.recordMiss();
+            } else {
+                stats.recordHit();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 执行加载函数，启用统计时记录加载耗时
+     *
+     * @param key    键
+     * @param loader 加载函数
+     * @return 值
+     */
+    private V loadValue(K key, Function<? super K, ? extends V> loader) {
+        final StatsCounter stats = this.statsCounter;
+        if (null == stats) {
+            return loader.apply(key);
+        }
+        final long start = System.nanoTime();
+        V value = null;
+        try {
+            value = loader.apply(key);
+            return value;
+        } finally {
+            final long loadTime = System.nanoTime() - start;
+            if (null == value) {
+                stats.recordLoadFailure(loadTime);
+            } else {
+                stats.recordLoadSuccess(loadTime);
+            }
+        }
+    }
+
+    /**
+     * 通知回收监听，设置了异步分发时放入分发队列
+     *
+     * @param reference 键
+     * @param value     值，已被回收时为{@code null}
+     */
+    private void notifyPurge(Reference<? extends K> reference, V value) {
+        final PurgeDispatcher<K, V> dispatcher = this.purgeDispatcher;
+        if (null != dispatcher) {
+            dispatcher.dispatch(reference, value);
+        } else if (null != purgeListener) {
+            purgeListener.accept(reference, value);
+        }
+    }
+
+    /**
+     * 被回收、过期或驱逐的键值对删除后，记录统计并通知回收监听
+     *
+     * @param reference 键
+     * @param value     值，已被回收时为{@code null}
+     */
+    private void afterPurge(Reference<? extends K> reference, V value) {
+        final StatsCounter stats = this.statsCounter;
+        if (null != stats) {
+            stats.recordEviction();
+        }
+        notifyPurge(reference, value);
+    }
+
+    /**
+     * 加入键值对
+     *
+     * @param key   键
+     * @param value 值
+     * @param ttl   此键值对的过期时长，单位纳秒，0表示使用Map的过期设置
+     * @return 旧值
+     */
+    private V put(K key, V value, long ttl) {
+        final long now = this.beforeWrite();
+        final Reference<K> reference = ofKey(key, this.lastQueue);
+        final V old;
+        if (isPlain()) {
+            old = this.raw.put(reference, value);
+        } else {
+            // 在raw的compute中记录过期时间和容量限制策略，与过期删除和驱逐互斥
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            final int weight = weigh(key, value);
+            this.raw.compute(reference, (kRef, stored) -> {
+                holder.value = valueOf(kRef, stored, now);
+                holder.victims = recordWrite(kRef, weight);
+                return store(kRef, value, now, ttl);
+            });
+            old = holder.value;
+            evict(holder.victims);
+        }
+        return old;
+    }
+
+    /**
+     * 写入前的处理：记录过期时间并包装值，须在raw的compute类函数中调用
+     *
+     * @param reference 键
+     * @param value     值
+     * @param now       当前时间
+     * @param ttl       此键值对的过期时长，单位纳秒，0表示使用Map的过期设置
+     * @return 保存到raw中的对象
+     */
+    private V store(Reference<K> reference, V value, long now, long ttl) {
+        final TimerWheel<K> wheel = this.timerWheel;
+        if (null != wheel) {
+            if (ttl > 0) {
+                wheel.schedule(reference, now + ttl, now + ttl, true);
+            } else {
+                final long expireAfterWrite = this.expireAfterWriteNanos;
+                final long expireAfterAccess = this.expireAfterAccessNanos;
+                if (0 == expireAfterWrite && 0 == expireAfterAccess) {
+                    wheel.deschedule(reference);
+                } else {
+                    final long writeLimit = now + (0 == expireAfterWrite ? MAXIMUM_DURATION : expireAfterWrite);
+                    final long time = 0 == expireAfterAccess ? writeLimit : Math.min(writeLimit, now + expireAfterAccess);
+                    wheel.schedule(reference, time, writeLimit, false);
+                }
+            }
+        }
+        return wrap(reference, value);
+    }
+
+    /**
+     * 计算键值对的权重，未设置容量限制时不调用权重计算函数
+     *
+     * @param key   键
+     * @param value 值
+     * @return 权重
+     */
+    private int weigh(K key, V value) {
+        final ToIntBiFunction<? super K, ? super V> weigher = this.weigher;
+        if (null == this.boundedPolicy || null == weigher) {
+            return 1;
+        }
+        return Math.max(0, weigher.applyAsInt(key, value));
+    }
+
+    /**
+     * 在容量限制策略中记录写入，须在raw的compute类函数中调用，使策略与raw中同一个键的状态一致
+     *
+     * @param reference 保存的键
+     * @param weight    权重
+     * @return 需要驱逐的键，由调用方在compute之外通过{@link #evict(List)}驱逐
+     */
+    private List<Reference<K>> recordWrite(Reference<K> reference, int weight) {
+        final BoundedPolicy<K> policy = this.boundedPolicy;
+        if (null == policy) {
+            return Collections.emptyList();
+        }
+        return policy.recordWrite(reference, weight);
+    }
+
+    /**
+     * 在容量限制策略中记录删除，须在raw的compute类函数中调用
+     *
+     * @param key 查找键或保存的键
+     */
+    private void recordRemove(Object key) {
+        final BoundedPolicy<K> policy = this.boundedPolicy;
+        if (null != policy) {
+            policy.recordRemove(key);
+        }
+    }
+
+    /**
+     * compute类操作的函数得到结果后，记录容量限制策略并返回保存到raw中的对象，须在raw的compute类函数中调用
+     *
+     * @param reference 保存的键
+     * @param stored    raw中原来保存的对象
+     * @param holder    计算结果，{@code null}表示删除，需要驱逐的键保存在其中
+     * @param now       当前时间
+     * @return 保存到raw中的对象，{@code null}表示删除
+     */
+    private V afterCompute(Reference<K> reference, V stored, ValueHolder<K, V> holder, long now) {
+        final V value = holder.value;
+        if (null == value) {
+            if (null != stored) {
+                recordRemove(reference);
+            }
+            return null;
+        }
+        final K key = reference.get();
+        if (null != key) {
+            holder.victims = recordWrite(reference, weigh(key, value));
+        }
+        return store(reference, value, now, 0);
+    }
+
+    /**
+     * 驱逐容量限制策略选出的键，并通知回收监听<br>
+     * 在raw的compute中确认键仍未被策略记录才删除，选出后又被重新写入的键不会被误删。
+     *
+     * @param victims 需要驱逐的键
+     */
+    private void evict(List<Reference<K>> victims) {
+        if (victims.isEmpty()) {
+            return;
+        }
+        final BoundedPolicy<K> policy = this.boundedPolicy;
+        for (Reference<K> victim : victims) {
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            this.raw.computeIfPresent(victim, (kRef, stored) -> {
+                if (null != policy && policy.contains(kRef)) {
+                    return stored;
+                }
+                holder.value = unwrap(stored);
+                holder.removed = true;
+                return null;
+            });
+            if (holder.removed) {
+                afterRemove(victim);
+                afterPurge(victim, holder.value);
+            }
+        }
+    }
+
+    /**
+     * 按当前的值重新记录已有键值对的权重，超出容量时驱逐
+     *
+     * @param reference raw中保存的键
+     */
+    private void reweigh(Reference<K> reference) {
+        final ValueHolder<K, V> holder = new ValueHolder<>();
+        this.raw.computeIfPresent(reference, (kRef, stored) -> {
+            final K key = kRef.get();
+            final V value = unwrap(stored);
+            if (null != key && null != value) {
+                holder.victims = recordWrite(kRef, weigh(key, value));
+            }
+            return stored;
+        });
+        evict(holder.victims);
+    }
+
+    /**
+     * 删除后取消过期时间，容量限制策略已在raw的compute中更新
+     *
+     * @param key 查找键或保存的键
+     */
+    private void afterRemove(Object key) {
+        final TimerWheel<K> wheel = this.timerWheel;
+        if (null != wheel) {
+            wheel.deschedule(key);
+        }
+    }
+
+    /**
+     * 读取操作前，根据清除策略决定是否清除被回收的键和过期的键
+     *
+     * @return 当前时间，未启用过期时为0
+     */
+    private long beforeRead() {
+        final long now = now();
+        final PurgePolicyEnum policy = this.purgePolicy;
+        if (PurgePolicyEnum.EVERY_OPERATION == policy) {
+            purgeStaleKeys(now);
+        } else if (PurgePolicyEnum.AMORTIZED == policy) {
+            purgeAmortized(now);
+        }
+        return now;
+    }
+
+    /**
+     * 写入操作前，根据清除策略决定是否清除被回收的键和过期的键
+     *
+     * @return 当前时间，未启用过期时为0
+     */
+    private long beforeWrite() {
+        final long now = now();
+        final PurgePolicyEnum policy = this.purgePolicy;
+        if (PurgePolicyEnum.EVERY_OPERATION == policy || PurgePolicyEnum.WRITE == policy) {
+            purgeStaleKeys(now);
+        } else if (PurgePolicyEnum.AMORTIZED == policy) {
+            purgeAmortized(now);
+        }
+        return now;
+    }
+
+    /**
+     * 每{@link #purgeInterval}次操作清除一次
+     *
+     * @param now 当前时间
+     */
+    private void purgeAmortized(long now) {
+        if (++operationCount >= purgeInterval) {
+            operationCount = 0;
+            purgeStaleKeys(now);
+        }
+    }
+
+    /**
+     * 清除被回收的键和值，以及过期的键
+     */
+    void purgeStaleKeys() {
+        purgeStaleKeys(now());
+    }
+
+    /**
+     * 清除被回收的键和值，以及过期的键
+     *
+     * @param now 当前时间
+     */
+    @SuppressWarnings("unchecked")
+    private void purgeStaleKeys(long now) {
+        Reference<? extends K> reference;
+        V value;
+        while ((reference = this.lastQueue.poll()) != null) {
+            final V stored = this.raw.remove(reference);
+            value = unwrap(stored);
+            // 被回收的键不会再被写入，值为null（值也已被回收）时同样需要更新容量限制策略
+            recordRemove(reference);
+            afterRemove(reference);
+            if (null != stored && null != this.statsCounter) {
+                this.statsCounter.recordEviction();
+            }
+            notifyPurge(reference, value);
+        }
+        if (null != this.valueQueue) {
+            Object valueReference;
+            while ((valueReference = this.valueQueue.poll()) != null) {
+                final Reference<K> keyReference = ((ValueReference<K>) valueReference).keyReference();
+                // 只有值未被替换时才删除
+                final Object expected = valueReference;
+                final ValueHolder<K, V> holder = new ValueHolder<>();
+                this.raw.computeIfPresent(keyReference, (kRef, stored) -> {
+                    if (stored != expected) {
+                        return stored;
+                    }
+                    recordRemove(kRef);
+                    holder.removed = true;
+                    return null;
+                });
+                if (holder.removed) {
+                    afterRemove(keyReference);
+                    afterPurge(keyReference, null);
+                }
+            }
+        }
+        expireEntries(now);
+    }
+
+    /**
+     * 推进时间轮，删除已过期的键，并通知回收监听
+     *
+     * @param now 当前时间
+     */
+    private void expireEntries(long now) {
+        final TimerWheel<K> wheel = this.timerWheel;
+        if (null == wheel) {
+            return;
+        }
+        for (Reference<K> reference : wheel.advance(now)) {
+            final ValueHolder<K, V> holder = new ValueHolder<>();
+            this.raw.computeIfPresent(reference, (kRef, stored) -> {
+                // 在raw的compute中确认，期间写入的键值对已重新调度，不会被误删
+                if (wheel.removeIfExpired(kRef, now)) {
+                    holder.value = unwrap(stored);
+                    holder.removed = true;
+                    recordRemove(kRef);
+                    return null;
+                }
+                return stored;
+            });
+            if (holder.removed) {
+                afterRemove(reference);
+                afterPurge(reference, holder.value);
+            } else {
+                // 键值对已不存在时清理节点
+                wheel.removeIfExpired(reference, now);
+            }
+        }
+    }
+
+    /**
+     * 确保时间轮已创建
+     */
+    private void ensureTimerWheel() {
+        if (null == this.timerWheel) {
+            synchronized (this) {
+                if (null == this.timerWheel) {
+                    this.timerWheel = new TimerWheel<>(this.ticker.read());
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前时间，未启用过期时返回0
+     *
+     * @return 当前时间，单位纳秒
+     */
+    private long now() {
+        return null == this.timerWheel ? 0 : this.ticker.read();
+    }
+
+    /**
+     * 转换时长为纳秒，超过上限时取上限
+     *
+     * @param duration 时长，不能为负数
+     * @param unit     时间单位
+     * @return 纳秒
+     */
+    private static long toNanos(long duration, TimeUnit unit) {
+        Assert.notNull(unit);
+        if (duration < 0) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
+        }
+        return Math.min(unit.toNanos(duration), MAXIMUM_DURATION);
+    }
+
+    /**
+     * 根据Reference类型构建key对应的{@link Reference}
+     *
+     * @param key   键
+     * @param queue {@link ReferenceQueue}
+     * @return {@link Reference}
+     */
+    private Reference<K> ofKey(K key, ReferenceQueue<? super K> queue) {
+        final int hash = hash(key);
+        return switch (keyType) {
+            case STRONG -> identity ? new IdentityStrongKey<>(key, hash) : new StrongKey<>(key, hash);
+            case WEAK -> identity ? new IdentityWeakKey<>(key, hash, queue) : new WeakKey<>(key, hash, queue);
+            case SOFT -> identity ? new IdentitySoftKey<>(key, hash, queue) : new SoftKey<>(key, hash, queue);
+            default -> throw new IllegalArgumentException("Unsupported key type: " + keyType);
+        };
+    }
+
+    /**
+     * 构建只用于查找的键，不创建{@link Reference}对象
+     *
+     * @param key 键
+     * @return 查找键
+     */
+    private Object ofLookupKey(Object key) {
+        final int hash = hash(key);
+        return identity ? new IdentityLookupKey(key, hash) : new LookupKey(key, hash);
+    }
+
+    /**
+     * 值是否为强引用
+     *
+     * @return 是否为强引用
+     */
+    private boolean isStrongValue() {
+        return ReferenceEnum.STRONG == this.valueType;
+    }
+
+    /**
+     * 是否可直接使用raw的对应方法：值为强引用、未启用过期且未设置容量限制
+     *
+     * @return 是否可直接使用raw的方法
+     */
+    private boolean isPlain() {
+        return isStrongValue() && null == this.timerWheel && null == this.boundedPolicy;
+    }
+
+    /**
+     * 获取raw中保存的值，值已被回收或已过期时返回{@code null}
+     *
+     * @param key    查找键或保存的键
+     * @param stored raw中保存的对象
+     * @param now    当前时间
+     * @return 值
+     */
+    private V valueOf(Object key, Object stored, long now) {
+        final V value = unwrap(stored);
+        final TimerWheel<K> wheel = this.timerWheel;
+        if (null != value && null != wheel && wheel.isExpired(key, now)) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * 根据值的引用类型包装值，强引用时返回原值
+     *
+     * @param reference 值对应的键
+     * @param value     值
+     * @return 保存到raw中的对象
+     */
+    @SuppressWarnings("unchecked")
+    private V wrap(Reference<K> reference, V value) {
+        return switch (valueType) {
+            case WEAK -> (V) new WeakValue<>(value, reference, valueQueue);
+            case SOFT -> (V) new SoftValue<>(value, reference, valueQueue);
+            default -> value;
+        };
+    }
+
+    /**
+     * 获取raw中保存的值，值已被回收时返回{@code null}
+     *
+     * @param stored raw中保存的对象
+     * @return 值
+     */
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object stored) {
+        if (null == stored || isStrongValue()) {
+            return (V) stored;
+        }
+        return ((Reference<V>) stored).get();
+    }
+
+    /**
+     * 计算键的哈希值，标识模式下使用{@link System#identityHashCode(Object)}
+     *
+     * @param key 键，不能为{@code null}
+     * @return 哈希值
+     */
+    private int hash(Object key) {
+        return identity ? System.identityHashCode(Objects.requireNonNull(key)) : key.hashCode();
+    }
+
+    /**
+     * 判断键是否相等，先比较引用，引用相同时不再调用equals<br>
+     * 已被回收（为{@code null}）的键与任何键都不相等，避免清除时误删其它同样已被回收的键。
+     *
+     * @param key1 键1
+     * @param key2 键2
+     * @return 是否相等
+     */
+    private static boolean keyEquals(Object key1, Object key2) {
+        return null != key1 && (key1 == key2 || key1.equals(key2));
+    }
+
+    /**
+     * 判断键是否为同一对象，已被回收（为{@code null}）的键与任何键都不相等
+     *
+     * @param key1 键1
+     * @param key2 键2
+     * @return 是否为同一对象
+     */
+    private static boolean keyIdentical(Object key1, Object key2) {
+        return null != key1 && key1 == key2;
+    }
+
+    /**
+     * 查找键<br>
+     * 只用于get、containsKey、remove等查找操作，直接持有原始键，不是{@link Reference}，
+     * 因此不需要GC进行引用处理，生命周期很短，可被JIT标量替换。
+     * 与{@link WeakKey}、{@link SoftKey}双向相等，不依赖Map实现中比较时键的左右位置。
+     */
+    private static class LookupKey {
+        final Object key;
+        private final int hashCode;
+
+        /**
+         * 构造
+         *
+         * @param key  原始Key，不能为{@code null}
+         * @param hash 哈希值
+         */
+        LookupKey(Object key, int hash) {
+            this.key = key;
+            this.hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            } else if (other instanceof Reference) {
+                return keyEquals(key, ((Reference<?>) other).get());
+            } else if (other instanceof LookupKey) {
+                return keyEquals(key, ((LookupKey) other).key);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 按对象标识（==）比较的查找键
+     */
+    private static final class IdentityLookupKey extends LookupKey {
+
+        /**
+         * 构造
+         *
+         * @param key  原始Key，不能为{@code null}
+         * @param hash 哈希值
+         */
+        IdentityLookupKey(Object key, int hash) {
+            super(key, hash);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            } else if (other instanceof Reference) {
+                return keyIdentical(key, ((Reference<?>) other).get());
+            } else if (other instanceof LookupKey) {
+                return keyIdentical(key, ((LookupKey) other).key);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 弱键
+     *
+     * @param <K> 键类型
+     */
+    private static class WeakKey<K> extends WeakReference<K> {
+        private final int hashCode;
+
+        /**
+         * 构造
+         *
+         * @param key   原始Key，不能为{@code null}
+         * @param hash  哈希值
+         * @param queue {@link ReferenceQueue}
+         */
+        WeakKey(K key, int hash, ReferenceQueue<? super K> queue) {
+            super(key, queue);
+            hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            } else if (other instanceof WeakKey) {
+                return keyEquals(get(), ((WeakKey<?>) other).get());
+            } else if (other instanceof LookupKey) {
+                return keyEquals(((LookupKey) other).key, get());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 按对象标识（==）比较的弱键
+     *
+     * @param <K> 键类型
+     */
+    private static class IdentityWeakKey<K> extends WeakKey<K> {
+
+        /**
+         * 构造
+         *
+         * @param key   原始Key，不能为{@code null}
+         * @param hash  哈希值
+         * @param queue {@link ReferenceQueue}
+         */
+        IdentityWeakKey(K key, int hash, ReferenceQueue<? super K> queue) {
+            super(key, hash, queue);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            } else if (other instanceof Reference) {
+                return keyIdentical(get(), ((Reference<?>) other).get());
+            } else if (other instanceof LookupKey) {
+                return keyIdentical(((LookupKey) other).key, get());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 软键
+     *
+     * @param <K> 键类型
+     */
+    private static class SoftKey<K> extends SoftReference<K> {
+        private final int hashCode;
+
         /**
          * 构造
          *
          * @param key   原始Key，不能为{@code null}
+         * @param hash  哈希值
          * @param queue {@link ReferenceQueue}
          */
-        SoftKey(K key, ReferenceQueue<? super K> queue) {
+        SoftKey(K key, int hash, ReferenceQueue<? super K> queue) {
             super(key, queue);
-            hashCode = key.hashCode();
+            hashCode = hash;
         }
 
         @Override
@@ -329,10 +1677,464 @@ public class ReferenceConcurrentMap<K, V> implements ConcurrentMap<K, V>, Iterab
             if (other == this) {
                 return true;
             } else if (other instanceof SoftKey) {
-                return ObjectUtils.equals(((SoftKey<?>) other).get(), get());
+                return keyEquals(get(), ((SoftKey<?>) other).get());
+            } else if (other instanceof LookupKey) {
+                return keyEquals(((LookupKey) other).key, get());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 按对象标识（==）比较的软键
+     *
+     * @param <K> 键类型
+     */
+    private static final class IdentitySoftKey<K> extends SoftKey<K> {
+
+        /**
+         * 构造
+         *
+         * @param key   原始Key，不能为{@code null}
+         * @param hash  哈希值
+         * @param queue {@link ReferenceQueue}
+         */
+        IdentitySoftKey(K key, int hash, ReferenceQueue<? super K> queue) {
+            super(key, hash, queue);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this) {
+                return true;
+            } else if (other instanceof Reference) {
+                return keyIdentical(get(), ((Reference<?>) other).get());
+            } else if (other instanceof LookupKey) {
+                return keyIdentical(((LookupKey) other).key, get());
             }
             return false;
         }
     }
 
+    // region 视图
+
+    /**
+     * 键的视图
+     */
+    private final class KeySetView extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return new ViewIterator<>((key, value) -> key);
+        }
+
+        @Override
+        public Spliterator<K> spliterator() {
+            return new ViewSpliterator<>(raw.entrySet().spliterator(), (key, value) -> key, now(), Spliterator.DISTINCT);
+        }
+
+        @Override
+        public int size() {
+            return ReferenceConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return null != ReferenceConcurrentMap.this.remove(o);
+        }
+
+        @Override
+        public void clear() {
+            ReferenceConcurrentMap.this.clear();
+        }
+    }
+
+    /**
+     * 值的视图
+     */
+    private final class ValuesView extends AbstractCollection<V> {
+        @Override
+        public Iterator<V> iterator() {
+            return new ViewIterator<>((key, value) -> value);
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return new ViewSpliterator<>(raw.entrySet().spliterator(), (key, value) -> value, now(), 0);
+        }
+
+        @Override
+        public int size() {
+            return ReferenceConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public void clear() {
+            ReferenceConcurrentMap.this.clear();
+        }
+    }
+
+    /**
+     * 键值对的视图
+     */
+    private final class EntrySetView extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new ViewIterator<>(MapEntry::new);
+        }
+
+        @Override
+        public Spliterator<Entry<K, V>> spliterator() {
+            return new ViewSpliterator<>(raw.entrySet().spliterator(), MapEntry::new, now(), Spliterator.DISTINCT);
+        }
+
+        @Override
+        public int size() {
+            return ReferenceConcurrentMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (false == (o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?> entry = (Entry<?, ?>) o;
+            final Object key = entry.getKey();
+            final Object value = entry.getValue();
+            if (null == key || null == value) {
+                return false;
+            }
+            final V current = get(key);
+            return null != current && current.equals(value);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (false == (o instanceof Entry)) {
+                return false;
+            }
+            final Entry<?, ?> entry = (Entry<?, ?>) o;
+            final Object key = entry.getKey();
+            final Object value = entry.getValue();
+            return null != key && null != value && ReferenceConcurrentMap.this.remove(key, value);
+        }
+
+        @Override
+        public void clear() {
+            ReferenceConcurrentMap.this.clear();
+        }
+    }
+
+    /**
+     * 视图的迭代器，直接遍历raw，跳过被回收或已过期的键值对<br>
+     * 下一个键值对在{@link #hasNext()}时取出并强引用持有，保证{@link #next()}返回的键值不会在两次调用之间被回收。
+     *
+     * @param <T> 元素类型
+     */
+    private final class ViewIterator<T> implements Iterator<T> {
+        private final Iterator<Entry<Reference<K>, V>> it = raw.entrySet().iterator();
+        private final BiFunction<K, V, T> mapper;
+        /**
+         * 迭代器创建时的时间，用于判断过期
+         */
+        private final long now = now();
+        private K nextKey;
+        private V nextValue;
+        private K lastKey;
+
+        /**
+         * 构造
+         *
+         * @param mapper 键值对到元素的转换函数
+         */
+        ViewIterator(BiFunction<K, V, T> mapper) {
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (null == nextKey && it.hasNext()) {
+                final Entry<Reference<K>, V> entry = it.next();
+                final K key = entry.getKey().get();
+                final V value = valueOf(entry.getKey(), entry.getValue(), now);
+                if (null != key && null != value) {
+                    nextKey = key;
+                    nextValue = value;
+                }
+            }
+            return null != nextKey;
+        }
+
+        @Override
+        public T next() {
+            if (false == hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final T result = mapper.apply(nextKey, nextValue);
+            lastKey = nextKey;
+            nextKey = null;
+            nextValue = null;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            if (null == lastKey) {
+                throw new IllegalStateException();
+            }
+            ReferenceConcurrentMap.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * 视图的{@link Spliterator}，包装raw的{@link Spliterator}，拆分交给raw，可用于并行流
+     *
+     * @param <T> 元素类型
+     */
+    private final class ViewSpliterator<T> implements Spliterator<T> {
+        private final Spliterator<Entry<Reference<K>, V>> spliterator;
+        private final BiFunction<K, V, T> mapper;
+        private final long now;
+        private final int characteristics;
+        /**
+         * {@link #tryAdvance(Consumer)}中是否已找到有效的键值对
+         */
+        private boolean found;
+
+        /**
+         * 构造
+         *
+         * @param spliterator     raw的{@link Spliterator}
+         * @param mapper          键值对到元素的转换函数
+         * @param now             当前时间，用于判断过期
+         * @param characteristics 额外的特征值
+         */
+        ViewSpliterator(Spliterator<Entry<Reference<K>, V>> spliterator, BiFunction<K, V, T> mapper, long now, int characteristics) {
+            this.spliterator = spliterator;
+            this.mapper = mapper;
+            this.now = now;
+            this.characteristics = Spliterator.CONCURRENT | Spliterator.NONNULL | characteristics;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Assert.notNull(action);
+            found = false;
+            //noinspection StatementWithEmptyBody
+            while (spliterator.tryAdvance(entry -> accept(entry, action)) && false == found) ;
+            return found;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            Assert.notNull(action);
+            spliterator.forEachRemaining(entry -> accept(entry, action));
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            final Spliterator<Entry<Reference<K>, V>> split = spliterator.trySplit();
+            return null == split ? null : new ViewSpliterator<>(split, mapper, now, characteristics);
+        }
+
+        @Override
+        public long estimateSize() {
+            return spliterator.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return characteristics;
+        }
+
+        /**
+         * 处理raw中的一个键值对，被回收或已过期的跳过
+         *
+         * @param entry  raw中的键值对
+         * @param action 元素处理函数
+         */
+        private void accept(Entry<Reference<K>, V> entry, Consumer<? super T> action) {
+            final K key = entry.getKey().get();
+            final V value = valueOf(entry.getKey(), entry.getValue(), now);
+            if (null != key && null != value) {
+                found = true;
+                action.accept(mapper.apply(key, value));
+            }
+        }
+    }
+
+    /**
+     * 视图中的键值对，{@link #setValue(Object)}写入Map
+     */
+    private final class MapEntry extends AbstractMap.SimpleEntry<K, V> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 构造
+         *
+         * @param key   键
+         * @param value 值
+         */
+        MapEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            Assert.notNull(value);
+            final V old = super.setValue(value);
+            put(getKey(), value);
+            return old;
+        }
+    }
+    // endregion
+
+
+    /**
+     * 强键<br>
+     * 为了与弱键、软键共用同一种raw Map，强键同样是{@link WeakReference}，但额外持有原始键的强引用，因此永远不会被GC清除。
+     *
+     * @param <K> 键类型
+     */
+    private static final class StrongKey<K> extends WeakKey<K> {
+        @SuppressWarnings({"unused", "FieldCanBeLocal"})
+        private final K key;
+
+        /**
+         * 构造
+         *
+         * @param key  原始Key，不能为{@code null}
+         * @param hash 哈希值
+         */
+        StrongKey(K key, int hash) {
+            super(key, hash, null);
+            this.key = key;
+        }
+    }
+
+    /**
+     * 按对象标识（==）比较的强键
+     *
+     * @param <K> 键类型
+     */
+    private static final class IdentityStrongKey<K> extends IdentityWeakKey<K> {
+        @SuppressWarnings({"unused", "FieldCanBeLocal"})
+        private final K key;
+
+        /**
+         * 构造
+         *
+         * @param key  原始Key，不能为{@code null}
+         * @param hash 哈希值
+         */
+        IdentityStrongKey(K key, int hash) {
+            super(key, hash, null);
+            this.key = key;
+        }
+    }
+
+    /**
+     * 弱引用或软引用的值，记录对应的键，值被回收时据此删除键值对
+     *
+     * @param <K> 键类型
+     */
+    private interface ValueReference<K> {
+
+        /**
+         * 获取值对应的键
+         *
+         * @return 键
+         */
+        Reference<K> keyReference();
+    }
+
+    /**
+     * 弱值
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class WeakValue<K, V> extends WeakReference<V> implements ValueReference<K> {
+        private final Reference<K> keyReference;
+
+        /**
+         * 构造
+         *
+         * @param value        值
+         * @param keyReference 对应的键
+         * @param queue        {@link ReferenceQueue}
+         */
+        WeakValue(V value, Reference<K> keyReference, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.keyReference = keyReference;
+        }
+
+        @Override
+        public Reference<K> keyReference() {
+            return keyReference;
+        }
+    }
+
+    /**
+     * 软值
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class SoftValue<K, V> extends SoftReference<V> implements ValueReference<K> {
+        private final Reference<K> keyReference;
+
+        /**
+         * 构造
+         *
+         * @param value        值
+         * @param keyReference 对应的键
+         * @param queue        {@link ReferenceQueue}
+         */
+        SoftValue(V value, Reference<K> keyReference, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.keyReference = keyReference;
+        }
+
+        @Override
+        public Reference<K> keyReference() {
+            return keyReference;
+        }
+    }
+
+    /**
+     * 加载中的占位，记录执行加载的线程，用于检测递归加载
+     *
+     * @param <V> 值类型
+     */
+    private static final class LoadingFuture<V> extends CompletableFuture<V> {
+        volatile Thread thread;
+    }
+
+    /**
+     * 在compute类操作的函数中传出结果
+     *
+     * @param <K> 键类型
+     * @param <V> 值类型
+     */
+    private static final class ValueHolder<K, V> {
+        V value;
+        boolean removed;
+        /**
+         * 容量限制策略选出的需要驱逐的键
+         */
+        List<Reference<K>> victims = Collections.emptyList();
+    }
+
 }
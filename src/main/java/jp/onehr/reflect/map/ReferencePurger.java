@@ -0,0 +1,107 @@
+package jp.onehr.reflect.map;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 共享的被回收键清除线程<br>
+ * 使用{@link jp.onehr.reflect.enums.PurgePolicyEnum#BACKGROUND}策略的所有{@link ReferenceConcurrentMap}
+ * 由同一个守护线程定期清除，Map本身以弱引用持有，不影响其被回收。
+ */
+final class ReferencePurger {
+
+    /**
+     * 清除间隔，单位毫秒，可通过系统属性{@code jp.onehr.reflect.purgeIntervalMillis}配置
+     */
+    private static final long INTERVAL_MILLIS = Long.getLong("jp.onehr.reflect.purgeIntervalMillis", 1000L);
+
+    private static final List<WeakReference<ReferenceConcurrentMap<?, ?>>> MAPS = new CopyOnWriteArrayList<>();
+    private static volatile Thread thread;
+
+    private ReferencePurger() {
+    }
+
+    /**
+     * 注册需要后台清除的Map，首次注册时启动清除线程
+     *
+     * @param map {@link ReferenceConcurrentMap}
+     */
+    static void register(ReferenceConcurrentMap<?, ?> map) {
+        for (WeakReference<ReferenceConcurrentMap<?, ?>> ref : MAPS) {
+            if (ref.get() == map) {
+                return;
+            }
+        }
+        MAPS.add(new WeakReference<>(map));
+        if (null == thread) {
+            startThread();
+        }
+    }
+
+    /**
+     * 取消注册
+     *
+     * @param map {@link ReferenceConcurrentMap}
+     */
+    static void unregister(ReferenceConcurrentMap<?, ?> map) {
+        MAPS.removeIf(ref -> {
+            final ReferenceConcurrentMap<?, ?> registered = ref.get();
+            return null == registered || registered == map;
+        });
+    }
+
+    /**
+     * 启动清除线程<br>
+     * 线程不继承调用方的上下文类加载器，避免长期持有应用的{@link ClassLoader}
+     */
+    private static synchronized void startThread() {
+        if (null != thread) {
+            return;
+        }
+        final Thread purger = new Thread(ReferencePurger::run, "ReferenceConcurrentMap-purger");
+        purger.setDaemon(true);
+        purger.setContextClassLoader(null);
+        thread = purger;
+        purger.start();
+    }
+
+    /**
+     * 清除线程退出时清空引用，之后的注册会重新启动线程
+     */
+    private static synchronized void threadExited() {
+        if (thread == Thread.currentThread()) {
+            thread = null;
+        }
+    }
+
+    /**
+     * 清除循环
+     */
+    private static void run() {
+        try {
+            while (true) {
+                try {
+                    Thread.sleep(INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (WeakReference<ReferenceConcurrentMap<?, ?>> ref : MAPS) {
+                    final ReferenceConcurrentMap<?, ?> map = ref.get();
+                    if (null == map) {
+                        MAPS.remove(ref);
+                        continue;
+                    }
+                    try {
+                        map.purgeStaleKeys();
+                    } catch (Throwable e) {
+                        // 回收监听抛出的异常或错误不影响其它Map的清除
+                    }
+                }
+            }
+        } finally {
+            threadExited();
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package jp.onehr.reflect.map;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计计数器<br>
+ * 使用{@link LongAdder}分段计数，高并发下的记录开销很低，读取快照时汇总。
+ */
+public final class StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * 记录命中
+     */
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    /**
+     * 记录未命中
+     */
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    /**
+     * 记录一次成功的加载
+     *
+     * @param loadTime 加载耗时，单位纳秒
+     */
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    /**
+     * 记录一次失败的加载（抛出异常或返回{@code null}）
+     *
+     * @param loadTime 加载耗时，单位纳秒
+     */
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    /**
+     * 记录一次清除（被GC回收、过期或超出容量被驱逐）
+     */
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    /**
+     * 获取统计快照
+     *
+     * @param estimatedSize 估算的键值对数量，未知时为-1
+     * @return {@link CacheStats}
+     */
+    public CacheStats snapshot(long estimatedSize) {
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+                totalLoadTime.sum(), evictionCount.sum(), estimatedSize);
+    }
+
+}
@@ -0,0 +1,26 @@
+package jp.onehr.reflect.map;
+
+/**
+ * 时间源，用于计算键值对的过期时间<br>
+ * 默认使用{@link System#nanoTime()}，测试时可替换为手动推进的实现。
+ */
+@FunctionalInterface
+public interface Ticker {
+
+    /**
+     * 读取当前时间，单位纳秒，只用于计算时间差，与系统时钟无关
+     *
+     * @return 当前时间，单位纳秒
+     */
+    long read();
+
+    /**
+     * 基于{@link System#nanoTime()}的时间源
+     *
+     * @return 时间源
+     */
+    static Ticker systemTicker() {
+        return System::nanoTime;
+    }
+
+}
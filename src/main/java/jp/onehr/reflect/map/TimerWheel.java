@@ -0,0 +1,326 @@
+package jp.onehr.reflect.map;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分层时间轮，用于键值对的过期<br>
+ * 按剩余时间将键放入不同精度的时间轮（约1秒、1分钟、1小时、1天和更长），调度、取消均为O(1)，
+ * 时间推进时只处理经过的桶，尚未到期的键下沉到更精细的时间轮，不需要扫描全部键。<br>
+ * 读取时延长过期时间（访问后过期）不加锁，只更新时间，桶的位置在时间轮处理到该桶时再修正。<br>
+ * 调度、取消和推进共用整个时间轮的一把锁，写入频繁时各写线程在此串行，锁内只做O(1)的链表操作；推进只尝试获取锁，不阻塞。<br>
+ * 参考：Caffeine TimerWheel
+ *
+ * @param <K> 键类型
+ */
+final class TimerWheel<K> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+    private static final long[] SPANS = {
+            1L << 30, // 1.07秒
+            1L << 36, // 1.14分钟
+            1L << 42, // 1.22小时
+            1L << 46, // 0.81天
+            1L << 48, // 3.26天
+            1L << 48,
+    };
+    private static final long[] SHIFT = {30, 36, 42, 46, 48};
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * 键 -> 节点，读取时无锁查询过期时间
+     */
+    private final ConcurrentHashMap<Object, Node<K>> nodes = new ConcurrentHashMap<>();
+    private final Node<K>[][] wheel;
+    /**
+     * 上次推进到的时间
+     */
+    private volatile long nanos;
+
+    /**
+     * 构造
+     *
+     * @param nanos 当前时间，单位纳秒
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        this.wheel = new Node[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                wheel[i][j] = new Node<>(null);
+            }
+        }
+    }
+
+    /**
+     * 键在指定时间是否已过期
+     *
+     * @param key 查找键或保存的键
+     * @param now 当前时间
+     * @return 是否已过期，未调度的键返回{@code false}
+     */
+    boolean isExpired(Object key, long now) {
+        final Node<K> node = nodes.get(key);
+        return null != node && node.time - now <= 0;
+    }
+
+    /**
+     * 访问时延长过期时间，不超过写入后过期的时间，不加锁，固定过期时间的键和未调度的键不变
+     *
+     * @param key  查找键或保存的键
+     * @param time 新的过期时间
+     */
+    void touch(Object key, long time) {
+        final Node<K> node = nodes.get(key);
+        if (null != node && false == node.fixed) {
+            node.time = time - node.writeLimit < 0 ? time : node.writeLimit;
+        }
+    }
+
+    /**
+     * 调度或重新调度键，在时间轮的锁内执行
+     *
+     * @param key        保存的键
+     * @param time       过期时间
+     * @param writeLimit 访问延长的上限（写入后过期的时间），固定过期时与time相同
+     * @param fixed      是否为固定过期时间，固定时访问不延长
+     */
+    void schedule(Reference<K> key, long time, long writeLimit, boolean fixed) {
+        lock.lock();
+        try {
+            Node<K> node = nodes.get(key);
+            if (null == node) {
+                node = new Node<>(key);
+                nodes.put(key, node);
+            } else {
+                unlink(node);
+            }
+            node.time = time;
+            node.writeLimit = writeLimit;
+            node.fixed = fixed;
+            link(findBucket(time), node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取消调度
+     *
+     * @param key 查找键或保存的键
+     */
+    void deschedule(Object key) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        lock.lock();
+        try {
+            final Node<K> node = nodes.remove(key);
+            if (null != node) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 如果键已过期则取消调度，未过期但已被{@link #advance(long)}取出的键重新调度
+     *
+     * @param key 保存的键
+     * @param now 当前时间
+     * @return 是否已过期
+     */
+    boolean removeIfExpired(Object key, long now) {
+        lock.lock();
+        try {
+            final Node<K> node = nodes.get(key);
+            if (null == node) {
+                return false;
+            }
+            if (node.time - now <= 0) {
+                nodes.remove(key);
+                unlink(node);
+                return true;
+            }
+            if (null == node.prev) {
+                link(findBucket(node.time), node);
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 推进时间，锁被占用时放弃（由持有锁的线程或下次操作推进）
+     *
+     * @param now 当前时间
+     * @return 已过期的键，需调用{@link #removeIfExpired(Object, long)}确认后删除
+     */
+    List<Reference<K>> advance(long now) {
+        // 未经过最小刻度时不需要处理任何桶，无锁返回
+        if ((now >>> SHIFT[0]) == (this.nanos >>> SHIFT[0]) || false == lock.tryLock()) {
+            return Collections.emptyList();
+        }
+        try {
+            long previous = this.nanos;
+            this.nanos = now;
+            // 纳秒时间由负变正时，整体平移以保持无符号的ticks连续
+            if (previous < 0 && now > 0) {
+                previous += Long.MAX_VALUE;
+                now += Long.MAX_VALUE;
+            }
+            List<Reference<K>> expired = Collections.emptyList();
+            for (int i = 0; i < SHIFT.length; i++) {
+                final long previousTicks = previous >>> SHIFT[i];
+                final long delta = (now >>> SHIFT[i]) - previousTicks;
+                if (delta <= 0) {
+                    break;
+                }
+                expired = expire(i, previousTicks, delta, expired);
+            }
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空
+     */
+    void clear() {
+        lock.lock();
+        try {
+            nodes.clear();
+            for (Node<K>[] buckets : wheel) {
+                for (Node<K> sentinel : buckets) {
+                    sentinel.prev = sentinel;
+                    sentinel.next = sentinel;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 处理指定层时间轮中经过的桶，已过期的键取出，未过期的键重新放入更精细的桶
+     *
+     * @param index         时间轮层级
+     * @param previousTicks 上次推进时的刻度
+     * @param delta         经过的刻度数
+     * @param expired       已过期的键
+     * @return 已过期的键
+     */
+    private List<Reference<K>> expire(int index, long previousTicks, long delta, List<Reference<K>> expired) {
+        final Node<K>[] timerWheel = wheel[index];
+        final int mask = timerWheel.length - 1;
+        final int steps = (int) Math.min(1 + delta, timerWheel.length);
+        final int start = (int) (previousTicks & mask);
+        final int end = start + steps;
+        for (int i = start; i < end; i++) {
+            final Node<K> sentinel = timerWheel[i & mask];
+            Node<K> node = sentinel.next;
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            while (node != sentinel) {
+                final Node<K> next = node.next;
+                node.prev = null;
+                node.next = null;
+                if (node.time - nanos <= 0) {
+                    if (expired.isEmpty()) {
+                        expired = new ArrayList<>();
+                    }
+                    expired.add(node.key);
+                } else {
+                    link(findBucket(node.time), node);
+                }
+                node = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 根据过期时间查找桶
+     *
+     * @param time 过期时间
+     * @return 桶的哨兵节点
+     */
+    private Node<K> findBucket(long time) {
+        final long duration = time - nanos;
+        final int length = wheel.length - 1;
+        for (int i = 0; i < length; i++) {
+            if (duration < SPANS[i + 1]) {
+                final long ticks = time >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+            }
+        }
+        return wheel[length][0];
+    }
+
+    /**
+     * 将节点加入桶的末尾
+     *
+     * @param sentinel 桶的哨兵节点
+     * @param node     节点
+     */
+    private static <K> void link(Node<K> sentinel, Node<K> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    /**
+     * 将节点从所在的桶中移除，不在桶中时忽略
+     *
+     * @param node 节点
+     */
+    private static <K> void unlink(Node<K> node) {
+        if (null != node.prev) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+    /**
+     * 时间轮节点，桶内以双向循环链表连接，哨兵节点的键为{@code null}
+     *
+     * @param <K> 键类型
+     */
+    private static final class Node<K> {
+        final Reference<K> key;
+        /**
+         * 过期时间，读取时无锁访问
+         */
+        volatile long time;
+        long writeLimit;
+        boolean fixed;
+        Node<K> prev;
+        Node<K> next;
+
+        /**
+         * 构造
+         *
+         * @param key 保存的键，哨兵节点为{@code null}
+         */
+        Node(Reference<K> key) {
+            this.key = key;
+            if (null == key) {
+                this.prev = this;
+                this.next = this;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package jp.onehr.reflect.map;
+
+import jp.onehr.reflect.enums.ReferenceEnum;
+
+import java.io.Serial;
+import java.lang.ref.Reference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 线程安全的WeakMap实现，按对象标识比较键<br>
+ * 键的哈希值使用{@link System#identityHashCode(Object)}，相等使用==判断，不调用键的hashCode和equals方法，
+ * 适用于以{@link Class}等不重写equals的对象为键的缓存。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class WeakIdentityConcurrentMap<K, V> extends ReferenceConcurrentMap<K, V> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 构造
+     */
+    public WeakIdentityConcurrentMap() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 构造
+     *
+     * @param raw {@link ConcurrentMap}实现
+     */
+    public WeakIdentityConcurrentMap(ConcurrentMap<Reference<K>, V> raw) {
+        this(raw, ReferenceEnum.STRONG);
+    }
+
+    /**
+     * 构造
+     *
+     * @param valueType 值的引用类型，支持{@link ReferenceEnum#STRONG}、{@link ReferenceEnum#WEAK}、{@link ReferenceEnum#SOFT}
+     */
+    public WeakIdentityConcurrentMap(ReferenceEnum valueType) {
+        this(new ConcurrentHashMap<>(), valueType);
+    }
+
+    /**
+     * 构造
+     *
+     * @param raw       {@link ConcurrentMap}实现
+     * @param valueType 值的引用类型，支持{@link ReferenceEnum#STRONG}、{@link ReferenceEnum#WEAK}、{@link ReferenceEnum#SOFT}
+     */
+    public WeakIdentityConcurrentMap(ConcurrentMap<Reference<K>, V> raw, ReferenceEnum valueType) {
+        super(raw, ReferenceEnum.WEAK, valueType, true);
+    }
+
+}
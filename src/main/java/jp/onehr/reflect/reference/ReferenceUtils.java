@@ -41,6 +41,7 @@ public class ReferenceUtils {
             case SOFT -> new SoftReference<>(referent, queue);
             case WEAK -> new WeakReference<>(referent, queue);
             case PHANTOM -> new PhantomReference<>(referent, queue);
+            case STRONG -> throw new IllegalArgumentException("Strong reference can not be created as java.lang.ref.Reference");
         };
     }
 
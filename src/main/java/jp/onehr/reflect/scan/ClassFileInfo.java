@@ -0,0 +1,172 @@
+package jp.onehr.reflect.scan;
+
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+
+/**
+ * 从class文件字节码中解析出的类元信息<br>
+ * 解析过程不加载类，因此不会触发静态初始化，类名均为二进制名称，例如：java.util.Map$Entry
+ */
+public final class ClassFileInfo {
+
+    /**
+     * 接口标识，对应字节码中的ACC_INTERFACE
+     */
+    private static final int ACC_INTERFACE = 0x0200;
+    /**
+     * 注解标识，对应字节码中的ACC_ANNOTATION
+     */
+    private static final int ACC_ANNOTATION = 0x2000;
+    /**
+     * 枚举标识，对应字节码中的ACC_ENUM
+     */
+    private static final int ACC_ENUM = 0x4000;
+
+    private final String className;
+    private final String superClassName;
+    private final String[] interfaceNames;
+    private final String[] annotationNames;
+    private final int access;
+
+    /**
+     * 构造
+     *
+     * @param className       类名
+     * @param superClassName  父类名，{@link Object}或module-info为{@code null}
+     * @param interfaceNames  直接实现的接口名
+     * @param annotationNames 类上运行时可见的注解名
+     * @param access          类访问标识
+     */
+    ClassFileInfo(String className, String superClassName, String[] interfaceNames, String[] annotationNames, int access) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+        this.annotationNames = annotationNames;
+        this.access = access;
+    }
+
+    /**
+     * 获取类名
+     *
+     * @return 类名
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * 获取父类名
+     *
+     * @return 父类名，{@link Object}返回{@code null}
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * 获取直接实现（或接口直接继承）的接口名
+     *
+     * @return 接口名数组
+     */
+    public String[] getInterfaceNames() {
+        return interfaceNames.clone();
+    }
+
+    /**
+     * 获取类上声明的运行时可见注解名（RuntimeVisibleAnnotations）
+     *
+     * @return 注解名数组
+     */
+    public String[] getAnnotationNames() {
+        return annotationNames.clone();
+    }
+
+    /**
+     * 获取类访问标识
+     *
+     * @return 访问标识
+     */
+    public int getAccess() {
+        return access;
+    }
+
+    /**
+     * 是否为接口（包括注解）
+     *
+     * @return 是否为接口
+     */
+    public boolean isInterface() {
+        return 0 != (access & ACC_INTERFACE);
+    }
+
+    /**
+     * 是否为注解
+     *
+     * @return 是否为注解
+     */
+    public boolean isAnnotation() {
+        return 0 != (access & ACC_ANNOTATION);
+    }
+
+    /**
+     * 是否为枚举
+     *
+     * @return 是否为枚举
+     */
+    public boolean isEnum() {
+        return 0 != (access & ACC_ENUM);
+    }
+
+    /**
+     * 是否为抽象类或接口
+     *
+     * @return 是否为抽象类或接口
+     */
+    public boolean isAbstract() {
+        return Modifier.isAbstract(access);
+    }
+
+    /**
+     * 类上是否声明了指定注解
+     *
+     * @param annotationName 注解类名
+     * @return 是否声明
+     */
+    public boolean hasAnnotation(String annotationName) {
+        for (String name : annotationNames) {
+            if (name.equals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取接口名数组，不复制
+     *
+     * @return 接口名数组
+     */
+    String[] rawInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * 获取注解名数组，不复制
+     *
+     * @return 注解名数组
+     */
+    String[] rawAnnotationNames() {
+        return annotationNames;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassFileInfo{" +
+                "className='" + className + '\'' +
+                ", superClassName='" + superClassName + '\'' +
+                ", interfaceNames=" + Arrays.toString(interfaceNames) +
+                ", annotationNames=" + Arrays.toString(annotationNames) +
+                '}';
+    }
+
+}
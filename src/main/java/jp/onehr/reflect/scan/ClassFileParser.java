@@ -0,0 +1,297 @@
+package jp.onehr.reflect.scan;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * class文件字节码解析器<br>
+ * 只读取常量池、类名、父类、接口以及类上的RuntimeVisibleAnnotations属性，字段和方法直接跳过，<br>
+ * 常量池中的UTF8字符串按需解码，不会加载被解析的类。
+ *
+ * <pre>
+ * ClassFile {
+ *     u4 magic; u2 minor_version; u2 major_version;
+ *     u2 constant_pool_count; cp_info constant_pool[constant_pool_count-1];
+ *     u2 access_flags; u2 this_class; u2 super_class;
+ *     u2 interfaces_count; u2 interfaces[interfaces_count];
+ *     u2 fields_count; field_info fields[fields_count];
+ *     u2 methods_count; method_info methods[methods_count];
+ *     u2 attributes_count; attribute_info attributes[attributes_count];
+ * }
+ * </pre>
+ */
+public class ClassFileParser {
+
+    /**
+     * class文件魔数
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+    /**
+     * 类上运行时可见注解的属性名
+     */
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String[] EMPTY_NAMES = new String[0];
+
+    // region 常量池tag
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+    // endregion
+
+    /**
+     * 解析class文件字节码
+     *
+     * @param bytes class文件内容
+     * @return {@link ClassFileInfo}
+     * @throws IllegalArgumentException 非法的class文件
+     */
+    public static ClassFileInfo parse(byte[] bytes) throws IllegalArgumentException {
+        return parse(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 解析class文件字节码，从buffer的当前位置开始读取，不改变传入buffer的position
+     *
+     * @param buffer class文件内容
+     * @return {@link ClassFileInfo}
+     * @throws IllegalArgumentException 非法的class文件
+     */
+    public static ClassFileInfo parse(ByteBuffer buffer) throws IllegalArgumentException {
+        try {
+            return doParse(buffer.slice());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or malformed class file", e);
+        }
+    }
+
+    /**
+     * 解析class文件字节码
+     *
+     * @param buf class文件内容，position为0
+     * @return {@link ClassFileInfo}
+     */
+    private static ClassFileInfo doParse(ByteBuffer buf) {
+        if (MAGIC != buf.getInt()) {
+            throw new IllegalArgumentException("Not a class file: bad magic");
+        }
+        // minor_version, major_version
+        buf.position(buf.position() + 4);
+
+        // 常量池，只记录每项的偏移，UTF8按需解码
+        final int cpCount = buf.getShort() & 0xFFFF;
+        final int[] offsets = new int[cpCount];
+        final String[] utf8Cache = new String[cpCount];
+        for (int i = 1; i < cpCount; i++) {
+            final int tag = buf.get();
+            offsets[i] = buf.position();
+            switch (tag) {
+                case CONSTANT_UTF8 -> buf.position(buf.position() + 2 + (buf.getShort(buf.position()) & 0xFFFF));
+                case CONSTANT_CLASS, CONSTANT_STRING, CONSTANT_METHOD_TYPE, CONSTANT_MODULE, CONSTANT_PACKAGE ->
+                        buf.position(buf.position() + 2);
+                case CONSTANT_METHOD_HANDLE -> buf.position(buf.position() + 3);
+                case CONSTANT_INTEGER, CONSTANT_FLOAT, CONSTANT_FIELDREF, CONSTANT_METHODREF,
+                     CONSTANT_INTERFACE_METHODREF, CONSTANT_NAME_AND_TYPE, CONSTANT_DYNAMIC,
+                     CONSTANT_INVOKE_DYNAMIC -> buf.position(buf.position() + 4);
+                case CONSTANT_LONG, CONSTANT_DOUBLE -> {
+                    buf.position(buf.position() + 8);
+                    // long和double占用两个常量池位置
+                    i++;
+                }
+                default -> throw new IllegalArgumentException("Unknown constant pool tag: " + tag);
+            }
+        }
+
+        final int access = buf.getShort() & 0xFFFF;
+        final String className = readClassName(buf, offsets, utf8Cache, buf.getShort() & 0xFFFF);
+        final int superIndex = buf.getShort() & 0xFFFF;
+        final String superClassName = 0 == superIndex ? null : readClassName(buf, offsets, utf8Cache, superIndex);
+
+        final int interfaceCount = buf.getShort() & 0xFFFF;
+        final String[] interfaceNames = 0 == interfaceCount ? EMPTY_NAMES : new String[interfaceCount];
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames[i] = readClassName(buf, offsets, utf8Cache, buf.getShort() & 0xFFFF);
+        }
+
+        // 跳过字段和方法，二者结构相同
+        skipMembers(buf);
+        skipMembers(buf);
+
+        String[] annotationNames = EMPTY_NAMES;
+        final int attributeCount = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            final int nameIndex = buf.getShort() & 0xFFFF;
+            final int length = buf.getInt();
+            final int end = buf.position() + length;
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(readUtf8(buf, offsets, utf8Cache, nameIndex))) {
+                annotationNames = readAnnotationNames(buf, offsets, utf8Cache);
+            }
+            buf.position(end);
+        }
+
+        return new ClassFileInfo(className, superClassName, interfaceNames, annotationNames, access);
+    }
+
+    /**
+     * 读取RuntimeVisibleAnnotations中各注解的类型名
+     *
+     * @param buf       字节码
+     * @param offsets   常量池偏移表
+     * @param utf8Cache 已解码的UTF8常量
+     * @return 注解类名数组
+     */
+    private static String[] readAnnotationNames(ByteBuffer buf, int[] offsets, String[] utf8Cache) {
+        final int count = buf.getShort() & 0xFFFF;
+        final String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = descriptorToClassName(readUtf8(buf, offsets, utf8Cache, buf.getShort() & 0xFFFF));
+            skipElementValuePairs(buf);
+        }
+        return names;
+    }
+
+    /**
+     * 跳过字段或方法表
+     *
+     * @param buf 字节码
+     */
+    private static void skipMembers(ByteBuffer buf) {
+        final int count = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            // access_flags, name_index, descriptor_index
+            buf.position(buf.position() + 6);
+            skipAttributes(buf);
+        }
+    }
+
+    /**
+     * 跳过属性表
+     *
+     * @param buf 字节码
+     */
+    private static void skipAttributes(ByteBuffer buf) {
+        final int count = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            // attribute_name_index
+            buf.position(buf.position() + 2);
+            final int length = buf.getInt();
+            buf.position(buf.position() + length);
+        }
+    }
+
+    /**
+     * 跳过注解的element_value_pairs（annotation结构中type_index之后的部分）
+     *
+     * @param buf 字节码
+     */
+    private static void skipElementValuePairs(ByteBuffer buf) {
+        final int pairCount = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < pairCount; i++) {
+            // element_name_index
+            buf.position(buf.position() + 2);
+            skipElementValue(buf);
+        }
+    }
+
+    /**
+     * 跳过单个element_value
+     *
+     * @param buf 字节码
+     */
+    private static void skipElementValue(ByteBuffer buf) {
+        final char tag = (char) buf.get();
+        switch (tag) {
+            case 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'Z', 's', 'c' -> buf.position(buf.position() + 2);
+            case 'e' -> buf.position(buf.position() + 4);
+            case '@' -> {
+                // type_index
+                buf.position(buf.position() + 2);
+                skipElementValuePairs(buf);
+            }
+            case '[' -> {
+                final int count = buf.getShort() & 0xFFFF;
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(buf);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unknown element value tag: " + tag);
+        }
+    }
+
+    /**
+     * 读取CONSTANT_Class指向的类名，并转换为二进制类名
+     *
+     * @param buf        字节码
+     * @param offsets    常量池偏移表
+     * @param utf8Cache  已解码的UTF8常量
+     * @param classIndex CONSTANT_Class常量的索引
+     * @return 类名，例如：java.util.Map$Entry
+     */
+    private static String readClassName(ByteBuffer buf, int[] offsets, String[] utf8Cache, int classIndex) {
+        final int nameIndex = buf.getShort(offsets[classIndex]) & 0xFFFF;
+        return readUtf8(buf, offsets, utf8Cache, nameIndex).replace('/', '.');
+    }
+
+    /**
+     * 按需解码常量池中的UTF8常量（Modified UTF-8）
+     *
+     * @param buf       字节码
+     * @param offsets   常量池偏移表
+     * @param utf8Cache 已解码的UTF8常量
+     * @param index     常量索引
+     * @return 字符串
+     */
+    private static String readUtf8(ByteBuffer buf, int[] offsets, String[] utf8Cache, int index) {
+        String result = utf8Cache[index];
+        if (null != result) {
+            return result;
+        }
+
+        final int offset = offsets[index];
+        final int length = buf.getShort(offset) & 0xFFFF;
+        final char[] chars = new char[length];
+        int charCount = 0;
+        int pos = offset + 2;
+        final int end = pos + length;
+        while (pos < end) {
+            final int b = buf.get(pos++) & 0xFF;
+            if (b < 0x80) {
+                chars[charCount++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[charCount++] = (char) (((b & 0x1F) << 6) | (buf.get(pos++) & 0x3F));
+            } else {
+                chars[charCount++] = (char) (((b & 0x0F) << 12) | ((buf.get(pos++) & 0x3F) << 6) | (buf.get(pos++) & 0x3F));
+            }
+        }
+        result = new String(chars, 0, charCount);
+        utf8Cache[index] = result;
+        return result;
+    }
+
+    /**
+     * 字段描述符转换为二进制类名，例如：Ljava/lang/Deprecated; =》 java.lang.Deprecated
+     *
+     * @param descriptor 描述符
+     * @return 类名
+     */
+    private static String descriptorToClassName(String descriptor) {
+        if (descriptor.length() > 2 && descriptor.charAt(0) == 'L' && descriptor.charAt(descriptor.length() - 1) == ';') {
+            return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+        }
+        return descriptor;
+    }
+
+}
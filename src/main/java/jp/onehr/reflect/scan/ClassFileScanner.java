@@ -0,0 +1,268 @@
+package jp.onehr.reflect.scan;
+
+import jp.onehr.reflect.clazz.ClasspathUtils;
+import jp.onehr.reflect.jar.MappedJarFile;
+import jp.onehr.reflect.text.CharPool;
+import jp.onehr.reflect.text.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 字节码级别的类扫描器<br>
+ * 直接读取目录或jar中的class文件并解析，构建{@link ClassIndex}，扫描过程中不加载任何类，<br>
+ * 因此不会执行静态初始化块，也不会占用元空间，只有最终匹配的类才需要加载。
+ *
+ * <pre>
+ * ClassIndex index = ClassFileScanner.scanJavaClassPath("com.example");
+ * Set&lt;Class&lt;?&gt;&gt; classes = index.loadAnnotatedClasses(Service.class);
+ * </pre>
+ */
+public class ClassFileScanner {
+
+    /**
+     * class文件扩展名
+     */
+    private static final String CLASS_EXT = ".class";
+    /**
+     * jar文件扩展名
+     */
+    private static final String JAR_EXT = ".jar";
+    /**
+     * 模块描述文件，不作为普通类索引
+     */
+    private static final String MODULE_INFO = "module-info.class";
+
+    /**
+     * 扫描java.class.path下所有类
+     *
+     * @return {@link ClassIndex}
+     */
+    public static ClassIndex scanJavaClassPath() {
+        return scanJavaClassPath(null);
+    }
+
+    /**
+     * 扫描java.class.path下指定包中的类
+     *
+     * @param packageName 包名，{@code null}或空表示扫描所有包
+     * @return {@link ClassIndex}
+     */
+    public static ClassIndex scanJavaClassPath(String packageName) {
+        final ClassIndex index = new ClassIndex();
+        for (String path : ClasspathUtils.getJavaClassPaths()) {
+            if (StringUtils.isNotBlank(path)) {
+                scan(new File(path), packageName, index);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 扫描目录或jar文件中指定包中的类，结果加入给定索引
+     *
+     * @param dirOrJar    目录或jar文件，不存在时忽略
+     * @param packageName 包名，{@code null}或空表示扫描所有包
+     * @param index       索引
+     * @return 索引
+     */
+    public static ClassIndex scan(File dirOrJar, String packageName, ClassIndex index) {
+        scan(dirOrJar, packageName, index::add, null);
+        return index;
+    }
+
+    /**
+     * 扫描目录或jar文件中指定包中的类和资源
+     *
+     * @param dirOrJar         目录或jar文件，不存在时忽略
+     * @param packageName      包名，{@code null}或空表示扫描所有包
+     * @param classConsumer    解析出的类信息处理函数
+     * @param resourceConsumer 非class资源路径处理函数，{@code null}表示不收集资源
+     */
+    public static void scan(File dirOrJar, String packageName,
+                            Consumer<ClassFileInfo> classConsumer, Consumer<String> resourceConsumer) {
+        final String pathPrefix = toPathPrefix(packageName);
+        if (dirOrJar.isDirectory()) {
+            scanDir(dirOrJar.toPath(), pathPrefix, classConsumer, resourceConsumer);
+        } else if (dirOrJar.isFile() && dirOrJar.getName().endsWith(JAR_EXT)) {
+            scanJar(dirOrJar, pathPrefix, classConsumer, resourceConsumer);
+        }
+    }
+
+    /**
+     * 扫描class目录
+     *
+     * @param root             classpath根目录
+     * @param pathPrefix       包路径前缀，例如：com/example/
+     * @param classConsumer    类信息处理函数
+     * @param resourceConsumer 资源路径处理函数，可以为{@code null}
+     */
+    private static void scanDir(Path root, String pathPrefix,
+                                Consumer<ClassFileInfo> classConsumer, Consumer<String> resourceConsumer) {
+        final Path start = root.resolve(pathPrefix);
+        if (false == Files.isDirectory(start)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(start)) {
+            stream.filter(Files::isRegularFile).forEach(path -> {
+                final String name = toEntryName(root, path);
+                if (isClassFile(name)) {
+                    try {
+                        parseInto(Files.readAllBytes(path), classConsumer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                } else if (null != resourceConsumer) {
+                    resourceConsumer.accept(name);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 扫描jar文件，通过{@link MappedJarFile}读取，未压缩的class条目直接在映射内存上解析<br>
+     * {@link MappedJarFile}无法打开（如超过2GB）时改用{@link ZipFile}读取
+     *
+     * @param jar              jar文件
+     * @param pathPrefix       包路径前缀，例如：com/example/
+     * @param classConsumer    类信息处理函数
+     * @param resourceConsumer 资源路径处理函数，可以为{@code null}
+     */
+    private static void scanJar(File jar, String pathPrefix,
+                                Consumer<ClassFileInfo> classConsumer, Consumer<String> resourceConsumer) {
+        final MappedJarFile mappedJarFile;
+        try {
+            mappedJarFile = MappedJarFile.open(jar);
+        } catch (IllegalArgumentException e) {
+            scanZipFile(jar, pathPrefix, classConsumer, resourceConsumer);
+            return;
+        }
+        try (MappedJarFile jarFile = mappedJarFile) {
+            jarFile.forEach(entry -> {
+                final String name = entry.getName();
+                if (entry.isDirectory() || false == name.startsWith(pathPrefix)) {
+                    return;
+                }
+                if (isClassFile(name)) {
+                    final ByteBuffer bytes;
+                    try {
+                        bytes = entry.getBuffer();
+                    } catch (IllegalArgumentException e) {
+                        // 不支持的压缩方式或损坏的条目，忽略之
+                        return;
+                    }
+                    parseInto(bytes, classConsumer);
+                } else if (null != resourceConsumer) {
+                    resourceConsumer.accept(name);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 通过{@link ZipFile}扫描jar文件
+     *
+     * @param jar              jar文件
+     * @param pathPrefix       包路径前缀，例如：com/example/
+     * @param classConsumer    类信息处理函数
+     * @param resourceConsumer 资源路径处理函数，可以为{@code null}
+     */
+    private static void scanZipFile(File jar, String pathPrefix,
+                                    Consumer<ClassFileInfo> classConsumer, Consumer<String> resourceConsumer) {
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            ZipEntry entry;
+            while (entries.hasMoreElements()) {
+                entry = entries.nextElement();
+                final String name = entry.getName();
+                if (entry.isDirectory() || false == name.startsWith(pathPrefix)) {
+                    continue;
+                }
+                if (isClassFile(name)) {
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        parseInto(in.readAllBytes(), classConsumer);
+                    }
+                } else if (null != resourceConsumer) {
+                    resourceConsumer.accept(name);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 解析字节码并交给处理函数，非法的class文件（例如多版本jar中的残缺条目）忽略之
+     *
+     * @param bytes         class字节码
+     * @param classConsumer 类信息处理函数
+     */
+    static void parseInto(byte[] bytes, Consumer<ClassFileInfo> classConsumer) {
+        parseInto(ByteBuffer.wrap(bytes), classConsumer);
+    }
+
+    /**
+     * 解析字节码并交给处理函数，非法的class文件（例如多版本jar中的残缺条目）忽略之
+     *
+     * @param bytes         class字节码
+     * @param classConsumer 类信息处理函数
+     */
+    static void parseInto(ByteBuffer bytes, Consumer<ClassFileInfo> classConsumer) {
+        final ClassFileInfo info;
+        try {
+            info = ClassFileParser.parse(bytes);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        classConsumer.accept(info);
+    }
+
+    /**
+     * 获取目录中文件相对于classpath根目录的条目名，使用/分隔
+     *
+     * @param root classpath根目录
+     * @param path 文件
+     * @return 条目名，例如：com/example/Foo.class
+     */
+    static String toEntryName(Path root, Path path) {
+        return root.relativize(path).toString().replace(File.separatorChar, CharPool.SLASH);
+    }
+
+    /**
+     * 是否为需要索引的class文件
+     *
+     * @param name 文件名或jar条目名
+     * @return 是否为class文件
+     */
+    static boolean isClassFile(String name) {
+        return name.endsWith(CLASS_EXT) && false == name.endsWith(MODULE_INFO);
+    }
+
+    /**
+     * 包名转换为路径前缀，例如：com.example =》 com/example/
+     *
+     * @param packageName 包名
+     * @return 路径前缀，包名为空时返回空串
+     */
+    static String toPathPrefix(String packageName) {
+        if (StringUtils.isBlank(packageName)) {
+            return "";
+        }
+        return packageName.replace(CharPool.DOT, CharPool.SLASH) + CharPool.SLASH;
+    }
+
+}
@@ -0,0 +1,268 @@
+package jp.onehr.reflect.scan;
+
+import jp.onehr.reflect.asserts.Assert;
+import jp.onehr.reflect.clazz.ClassLoaderUtils;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于字节码解析结果的类索引<br>
+ * 维护以下三类关系，查询时只涉及字符串，只有调用load开头的方法时才会加载匹配的类：
+ * <pre>
+ * 1. 注解 =》 被注解的类
+ * 2. 父类 =》 直接子类
+ * 3. 接口 =》 直接实现类（或直接继承的子接口）
+ * </pre>
+ * 所有方法线程安全，索引可在运行期增量添加或移除类。
+ */
+public class ClassIndex {
+
+    private final Map<String, ClassFileInfo> classes = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> annotatedClasses = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> subclasses = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> implementors = new ConcurrentHashMap<>();
+
+    /**
+     * 加入类信息，如果同名类已经存在，则替换之
+     *
+     * @param info {@link ClassFileInfo}
+     */
+    public void add(ClassFileInfo info) {
+        Assert.notNull(info);
+        // 替换和关联在同一个compute中完成，同名类的并发加入或移除不会留下过期的关联
+        classes.compute(info.getClassName(), (className, old) -> {
+            if (null != old) {
+                unlink(old);
+            }
+            link(info);
+            return info;
+        });
+    }
+
+    /**
+     * 移除指定类
+     *
+     * @param className 类名
+     * @return 被移除的类信息，不存在返回{@code null}
+     */
+    public ClassFileInfo remove(String className) {
+        final ClassFileInfo[] removed = new ClassFileInfo[1];
+        classes.computeIfPresent(className, (k, old) -> {
+            unlink(old);
+            removed[0] = old;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 合并另一个索引中的所有类
+     *
+     * @param other 其它索引
+     */
+    public void addAll(ClassIndex other) {
+        other.classes.values().forEach(this::add);
+    }
+
+    /**
+     * 获取类信息
+     *
+     * @param className 类名
+     * @return {@link ClassFileInfo}，不存在返回{@code null}
+     */
+    public ClassFileInfo getClassInfo(String className) {
+        return classes.get(className);
+    }
+
+    /**
+     * 获取所有类名
+     *
+     * @return 类名集合，只读
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classes.keySet());
+    }
+
+    /**
+     * 索引中类的数量
+     *
+     * @return 类数量
+     */
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * 获取被指定注解直接标注的类名
+     *
+     * @param annotationName 注解类名
+     * @return 类名集合，只读
+     */
+    public Set<String> getAnnotatedClassNames(String annotationName) {
+        return readOnly(annotatedClasses.get(annotationName));
+    }
+
+    /**
+     * 获取指定类的直接子类名
+     *
+     * @param superClassName 父类名
+     * @return 子类名集合，只读
+     */
+    public Set<String> getSubclassNames(String superClassName) {
+        return readOnly(subclasses.get(superClassName));
+    }
+
+    /**
+     * 获取直接实现指定接口的类名（包括直接继承此接口的子接口）
+     *
+     * @param interfaceName 接口名
+     * @return 实现类名集合，只读
+     */
+    public Set<String> getImplementorNames(String interfaceName) {
+        return readOnly(implementors.get(interfaceName));
+    }
+
+    /**
+     * 获取指定类型在索引中的所有子类型，包括间接子类、间接实现类和子接口的实现类
+     *
+     * @param typeName 类或接口名
+     * @return 子类型名集合，不包括自身
+     */
+    public Set<String> getAllSubtypeNames(String typeName) {
+        final Set<String> result = new LinkedHashSet<>();
+        final Deque<String> queue = new ArrayDeque<>();
+        queue.add(typeName);
+        String current;
+        while (null != (current = queue.poll())) {
+            for (String name : getSubclassNames(current)) {
+                if (result.add(name)) {
+                    queue.add(name);
+                }
+            }
+            for (String name : getImplementorNames(current)) {
+                if (result.add(name)) {
+                    queue.add(name);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 加载被指定注解直接标注的类，类不会被初始化<br>
+     * 只有索引中匹配的类才会被加载
+     *
+     * @param annotationClass 注解类
+     * @return 类集合
+     */
+    public Set<Class<?>> loadAnnotatedClasses(Class<? extends Annotation> annotationClass) {
+        return loadClasses(getAnnotatedClassNames(annotationClass.getName()), null);
+    }
+
+    /**
+     * 加载指定类型的所有子类型，类不会被初始化<br>
+     * 只有索引中匹配的类才会被加载
+     *
+     * @param type 类或接口
+     * @return 类集合
+     */
+    public Set<Class<?>> loadAllSubtypes(Class<?> type) {
+        return loadClasses(getAllSubtypeNames(type.getName()), null);
+    }
+
+    /**
+     * 加载给定类名的类，类不会被初始化
+     *
+     * @param classNames  类名集合
+     * @param classLoader {@link ClassLoader}，{@code null} 则使用{@link ClassLoaderUtils#getClassLoader()}获取
+     * @return 类集合
+     */
+    public static Set<Class<?>> loadClasses(Collection<String> classNames, ClassLoader classLoader) {
+        final Set<Class<?>> result = new LinkedHashSet<>(classNames.size());
+        for (String className : classNames) {
+            result.add(ClassLoaderUtils.loadClass(className, classLoader, false));
+        }
+        return result;
+    }
+
+    /**
+     * 建立类与注解、父类和接口的关联
+     *
+     * @param info 类信息
+     */
+    private void link(ClassFileInfo info) {
+        final String className = info.getClassName();
+        for (String annotationName : info.rawAnnotationNames()) {
+            addTo(annotatedClasses, annotationName, className);
+        }
+        if (null != info.getSuperClassName()) {
+            addTo(subclasses, info.getSuperClassName(), className);
+        }
+        for (String interfaceName : info.rawInterfaceNames()) {
+            addTo(implementors, interfaceName, className);
+        }
+    }
+
+    /**
+     * 解除类与注解、父类和接口的关联
+     *
+     * @param info 类信息
+     */
+    private void unlink(ClassFileInfo info) {
+        final String className = info.getClassName();
+        for (String annotationName : info.rawAnnotationNames()) {
+            removeFrom(annotatedClasses, annotationName, className);
+        }
+        if (null != info.getSuperClassName()) {
+            removeFrom(subclasses, info.getSuperClassName(), className);
+        }
+        for (String interfaceName : info.rawInterfaceNames()) {
+            removeFrom(implementors, interfaceName, className);
+        }
+    }
+
+    /**
+     * 向多值映射中加入值
+     *
+     * @param map   多值映射
+     * @param key   键
+     * @param value 值
+     */
+    private static void addTo(Map<String, Set<String>> map, String key, String value) {
+        // 在compute中修改集合，避免与removeFrom移除空集合时产生竞争
+        map.compute(key, (k, set) -> {
+            if (null == set) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(value);
+            return set;
+        });
+    }
+
+    /**
+     * 从多值映射中移除值，集合为空时移除键
+     *
+     * @param map   多值映射
+     * @param key   键
+     * @param value 值
+     */
+    private static void removeFrom(Map<String, Set<String>> map, String key, String value) {
+        map.computeIfPresent(key, (k, set) -> {
+            set.remove(value);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 包装为只读集合，{@code null}返回空集合
+     *
+     * @param set 集合
+     * @return 只读集合
+     */
+    private static Set<String> readOnly(Set<String> set) {
+        return null == set ? Collections.emptySet() : Collections.unmodifiableSet(set);
+    }
+
+}
@@ -0,0 +1,103 @@
+package jp.onehr.reflect.scan;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单个classpath条目（目录或jar）的扫描结果<br>
+ * 记录条目的长度、修改时间和校验值，用于判断持久化的索引是否仍然有效。
+ */
+public final class ClasspathEntryIndex {
+
+    private final String path;
+    private final long length;
+    private final long lastModified;
+    private final long checksum;
+    private final List<ClassFileInfo> classes;
+    private final List<String> resources;
+
+    /**
+     * 构造
+     *
+     * @param path         条目路径
+     * @param length       jar文件长度，目录为所有文件长度之和
+     * @param lastModified jar文件修改时间，目录为其中文件的最大修改时间
+     * @param checksum     校验值，jar为文件内容的CRC32，目录为文件路径、长度和修改时间的CRC32
+     * @param classes      条目中的类
+     * @param resources    条目中的非class资源路径，用/分隔
+     */
+    ClasspathEntryIndex(String path, long length, long lastModified, long checksum,
+                        List<ClassFileInfo> classes, List<String> resources) {
+        this.path = path;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.checksum = checksum;
+        this.classes = Collections.unmodifiableList(classes);
+        this.resources = Collections.unmodifiableList(resources);
+    }
+
+    /**
+     * 获取条目路径
+     *
+     * @return 条目路径
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 获取条目长度
+     *
+     * @return 长度
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * 获取条目修改时间
+     *
+     * @return 修改时间
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 获取条目校验值
+     *
+     * @return 校验值
+     */
+    public long getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * 获取条目中的类
+     *
+     * @return 类信息列表，只读
+     */
+    public List<ClassFileInfo> getClasses() {
+        return classes;
+    }
+
+    /**
+     * 获取条目中的非class资源
+     *
+     * @return 资源路径列表，只读
+     */
+    public List<String> getResources() {
+        return resources;
+    }
+
+    /**
+     * 使用新的修改时间构建副本，用于文件被touch但内容未变化的情况
+     *
+     * @param lastModified 修改时间
+     * @return 新的条目索引
+     */
+    ClasspathEntryIndex withLastModified(long lastModified) {
+        return new ClasspathEntryIndex(path, length, lastModified, checksum, classes, resources);
+    }
+
+}
@@ -0,0 +1,563 @@
+package jp.onehr.reflect.scan;
+
+import jp.onehr.reflect.asserts.Assert;
+import jp.onehr.reflect.clazz.ClasspathUtils;
+import jp.onehr.reflect.text.StringUtils;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 可持久化的classpath索引<br>
+ * 按classpath条目（目录或jar）分别保存扫描得到的类和资源，并记录每个条目的长度、修改时间和校验值，<br>
+ * 写入紧凑的二进制文件后，下次启动时通过内存映射读取，只有发生变化的条目才会被重新扫描。
+ *
+ * <pre>
+ * ClasspathIndex index = ClasspathIndex.loadOrScan(Paths.get("target/classpath.idx"));
+ * Set&lt;Class&lt;?&gt;&gt; classes = index.getClassIndex().loadAnnotatedClasses(Service.class);
+ * </pre>
+ * <p>
+ * 文件格式（大端序）：
+ * <pre>
+ * int magic; int version;
+ * int stringCount; { int byteLength; byte[] utf8; }*
+ * int entryCount; {
+ *     int path; long length; long lastModified; long checksum;
+ *     int classCount; { int name; int superName; int access; int n; int[n] interfaces; int m; int[m] annotations; }*
+ *     int resourceCount; int[] resources;
+ * }*
+ * </pre>
+ * 其中类名、资源名等字符串均以字符串表下标保存，{@code -1}表示{@code null}。
+ * <p>
+ * 此类的修改方法非线程安全，{@link #getClassIndex()}返回的索引可并发读取。
+ */
+public class ClasspathIndex {
+
+    /**
+     * 文件魔数：RIDX
+     */
+    private static final int MAGIC = 0x52494458;
+    /**
+     * 文件格式版本
+     */
+    private static final int VERSION = 2;
+
+    private final Map<String, ClasspathEntryIndex> entries = new LinkedHashMap<>();
+    private ClassIndex classIndex;
+    private Map<String, List<String>> resourceLocations;
+    private boolean dirty;
+
+    // region 构建
+
+    /**
+     * 扫描java.class.path，构建索引
+     *
+     * @return {@link ClasspathIndex}
+     */
+    public static ClasspathIndex scan() {
+        return scan(ClasspathUtils.getJavaClassPaths());
+    }
+
+    /**
+     * 扫描给定的classpath条目，构建索引
+     *
+     * @param paths 目录或jar路径
+     * @return {@link ClasspathIndex}
+     */
+    public static ClasspathIndex scan(String... paths) {
+        final ClasspathIndex index = new ClasspathIndex();
+        index.refresh(paths);
+        return index;
+    }
+
+    /**
+     * 读取索引文件，如果文件不存在或损坏则扫描java.class.path，并只重新扫描发生变化的条目，<br>
+     * 索引有变化时写回文件
+     *
+     * @param indexFile 索引文件
+     * @return {@link ClasspathIndex}
+     */
+    public static ClasspathIndex loadOrScan(Path indexFile) {
+        return loadOrScan(indexFile, ClasspathUtils.getJavaClassPaths());
+    }
+
+    /**
+     * 读取索引文件，如果文件不存在或损坏则全量扫描，并只重新扫描发生变化的条目，<br>
+     * 索引有变化时写回文件，写回失败（如目录只读）时忽略，仍返回扫描得到的索引
+     *
+     * @param indexFile 索引文件
+     * @param paths     目录或jar路径
+     * @return {@link ClasspathIndex}
+     */
+    public static ClasspathIndex loadOrScan(Path indexFile, String... paths) {
+        ClasspathIndex index = null;
+        if (Files.isRegularFile(indexFile)) {
+            try {
+                index = load(indexFile);
+            } catch (IllegalArgumentException | UncheckedIOException e) {
+                // 索引文件损坏或版本不一致，重新扫描
+            }
+        }
+        if (null == index) {
+            index = new ClasspathIndex();
+        }
+        if (index.refresh(paths)) {
+            try {
+                index.write(indexFile);
+            } catch (UncheckedIOException e) {
+                // 索引文件只用于加速下次加载，无法写入时只使用内存中的索引
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 通过内存映射读取索引文件
+     *
+     * @param indexFile 索引文件
+     * @return {@link ClasspathIndex}
+     * @throws IllegalArgumentException 文件格式错误或版本不一致
+     */
+    public static ClasspathIndex load(Path indexFile) throws IllegalArgumentException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated classpath index: " + indexFile, e);
+        }
+    }
+    // endregion
+
+    /**
+     * 与给定的classpath条目同步：新增或发生变化的条目重新扫描，不再存在的条目移除<br>
+     * 条目的长度和修改时间均未变化时直接复用；否则比较校验值，内容未变化时只更新修改时间。
+     *
+     * @param paths 目录或jar路径
+     * @return 索引是否发生变化
+     */
+    public boolean refresh(String... paths) {
+        final Map<String, ClasspathEntryIndex> refreshed = new LinkedHashMap<>();
+        boolean changed = false;
+        for (String path : paths) {
+            if (StringUtils.isBlank(path) || refreshed.containsKey(path)) {
+                continue;
+            }
+            final File file = new File(path);
+            if (false == file.exists()) {
+                continue;
+            }
+            ClasspathEntryIndex entry = this.entries.get(path);
+            final long[] stat = stat(file);
+            if (null == entry || entry.getLength() != stat[0] || entry.getLastModified() != stat[1]) {
+                final long checksum = checksum(file);
+                if (null != entry && entry.getLength() == stat[0] && entry.getChecksum() == checksum) {
+                    entry = entry.withLastModified(stat[1]);
+                } else {
+                    entry = scanEntry(path, file, stat, checksum);
+                }
+                changed = true;
+            }
+            refreshed.put(path, entry);
+        }
+        if (false == refreshed.keySet().equals(this.entries.keySet())) {
+            changed = true;
+        }
+        if (changed) {
+            this.entries.clear();
+            this.entries.putAll(refreshed);
+            this.classIndex = null;
+            this.resourceLocations = null;
+            this.dirty = true;
+        }
+        return changed;
+    }
+
+    /**
+     * 重新扫描单个条目，条目原先不存在时加入到末尾
+     *
+     * @param path 目录或jar路径
+     */
+    public void rescan(String path) {
+        final File file = new File(path);
+        if (file.exists()) {
+            final long[] stat = stat(file);
+            this.entries.put(path, scanEntry(path, file, stat, checksum(file)));
+        } else {
+            this.entries.remove(path);
+        }
+        this.classIndex = null;
+        this.resourceLocations = null;
+        this.dirty = true;
+    }
+
+    /**
+     * 获取合并后的类索引，多个条目中存在同名类时，以classpath中靠前的条目为准
+     *
+     * @return {@link ClassIndex}
+     */
+    public ClassIndex getClassIndex() {
+        ClassIndex result = this.classIndex;
+        if (null == result) {
+            result = new ClassIndex();
+            final List<ClasspathEntryIndex> list = new ArrayList<>(this.entries.values());
+            // 倒序加入，使靠前的条目覆盖靠后的条目
+            for (int i = list.size() - 1; i >= 0; i--) {
+                list.get(i).getClasses().forEach(result::add);
+            }
+            this.classIndex = result;
+        }
+        return result;
+    }
+
+    /**
+     * 获取包含指定资源的classpath条目，按classpath顺序排列
+     *
+     * @param resource 资源路径，用/分隔，例如：META-INF/spring.factories
+     * @return 条目路径列表，不存在返回空列表
+     */
+    public List<String> getResourceLocations(String resource) {
+        Map<String, List<String>> locations = this.resourceLocations;
+        if (null == locations) {
+            locations = new HashMap<>();
+            for (ClasspathEntryIndex entry : this.entries.values()) {
+                for (String name : entry.getResources()) {
+                    locations.computeIfAbsent(name, k -> new ArrayList<>(1)).add(entry.getPath());
+                }
+            }
+            this.resourceLocations = locations;
+        }
+        return locations.getOrDefault(resource, Collections.emptyList());
+    }
+
+    /**
+     * 获取所有条目的扫描结果
+     *
+     * @return 条目列表，按classpath顺序排列，只读
+     */
+    public Collection<ClasspathEntryIndex> getEntries() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
+    /**
+     * 自上次读取或写入后索引是否有变化
+     *
+     * @return 是否有变化
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * 将索引写入文件，先写入临时文件再替换，避免读取到不完整的索引
+     *
+     * @param indexFile 索引文件
+     */
+    public void write(Path indexFile) {
+        Assert.notNull(indexFile);
+        final Map<String, Integer> stringTable = new LinkedHashMap<>();
+        for (ClasspathEntryIndex entry : this.entries.values()) {
+            intern(stringTable, entry.getPath());
+            for (ClassFileInfo info : entry.getClasses()) {
+                intern(stringTable, info.getClassName());
+                intern(stringTable, info.getSuperClassName());
+                Arrays.stream(info.rawInterfaceNames()).forEach(name -> intern(stringTable, name));
+                Arrays.stream(info.rawAnnotationNames()).forEach(name -> intern(stringTable, name));
+            }
+            entry.getResources().forEach(name -> intern(stringTable, name));
+        }
+
+        try {
+            final Path parent = indexFile.toAbsolutePath().getParent();
+            if (null != parent) {
+                Files.createDirectories(parent);
+            }
+            final Path tmp = Files.createTempFile(null == parent ? Paths.get(".") : parent,
+                    indexFile.getFileName().toString(), ".tmp");
+            boolean moved = false;
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(stringTable.size());
+                    for (String str : stringTable.keySet()) {
+                        final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                    out.writeInt(this.entries.size());
+                    for (ClasspathEntryIndex entry : this.entries.values()) {
+                        writeEntry(out, entry, stringTable);
+                    }
+                }
+                Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved = true;
+            } finally {
+                if (false == moved) {
+                    // 写入或移动失败时删除临时文件，不留下残留
+                    deleteQuietly(tmp);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.dirty = false;
+    }
+
+    // region 私有方法
+
+    /**
+     * 删除文件，失败时忽略
+     *
+     * @param file 文件
+     */
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // 删除失败只是留下临时文件
+        }
+    }
+
+    /**
+     * 写入单个条目
+     *
+     * @param out         输出
+     * @param entry       条目
+     * @param stringTable 字符串表
+     * @throws IOException IO异常
+     */
+    private static void writeEntry(DataOutputStream out, ClasspathEntryIndex entry, Map<String, Integer> stringTable) throws IOException {
+        out.writeInt(stringTable.get(entry.getPath()));
+        out.writeLong(entry.getLength());
+        out.writeLong(entry.getLastModified());
+        out.writeLong(entry.getChecksum());
+        out.writeInt(entry.getClasses().size());
+        for (ClassFileInfo info : entry.getClasses()) {
+            out.writeInt(stringTable.get(info.getClassName()));
+            out.writeInt(null == info.getSuperClassName() ? -1 : stringTable.get(info.getSuperClassName()));
+            out.writeInt(info.getAccess());
+            writeNames(out, info.rawInterfaceNames(), stringTable);
+            writeNames(out, info.rawAnnotationNames(), stringTable);
+        }
+        writeNames(out, entry.getResources().toArray(new String[0]), stringTable);
+    }
+
+    /**
+     * 写入字符串下标数组
+     *
+     * @param out         输出
+     * @param names       字符串数组
+     * @param stringTable 字符串表
+     * @throws IOException IO异常
+     */
+    private static void writeNames(DataOutputStream out, String[] names, Map<String, Integer> stringTable) throws IOException {
+        out.writeInt(names.length);
+        for (String name : names) {
+            out.writeInt(stringTable.get(name));
+        }
+    }
+
+    /**
+     * 从映射的文件中读取索引
+     *
+     * @param buf 文件内容
+     * @return {@link ClasspathIndex}
+     */
+    private static ClasspathIndex read(ByteBuffer buf) {
+        if (MAGIC != buf.getInt()) {
+            throw new IllegalArgumentException("Not a classpath index file: bad magic");
+        }
+        final int version = buf.getInt();
+        if (VERSION != version) {
+            throw new IllegalArgumentException("Unsupported classpath index version: " + version);
+        }
+
+        final String[] strings = new String[readCount(buf)];
+        for (int i = 0; i < strings.length; i++) {
+            final int length = buf.getInt();
+            strings[i] = StandardCharsets.UTF_8.decode(buf.slice(buf.position(), length)).toString();
+            buf.position(buf.position() + length);
+        }
+
+        final ClasspathIndex index = new ClasspathIndex();
+        final int entryCount = readCount(buf);
+        for (int i = 0; i < entryCount; i++) {
+            final String path = strings[buf.getInt()];
+            final long length = buf.getLong();
+            final long lastModified = buf.getLong();
+            final long checksum = buf.getLong();
+            final int classCount = readCount(buf);
+            final List<ClassFileInfo> classes = new ArrayList<>(classCount);
+            for (int j = 0; j < classCount; j++) {
+                final String className = strings[buf.getInt()];
+                final int superIndex = buf.getInt();
+                final int access = buf.getInt();
+                classes.add(new ClassFileInfo(className, -1 == superIndex ? null : strings[superIndex],
+                        readNames(buf, strings), readNames(buf, strings), access));
+            }
+            final List<String> resources = Arrays.asList(readNames(buf, strings));
+            index.entries.put(path, new ClasspathEntryIndex(path, length, lastModified, checksum, classes, resources));
+        }
+        return index;
+    }
+
+    /**
+     * 读取字符串下标数组
+     *
+     * @param buf     文件内容
+     * @param strings 字符串表
+     * @return 字符串数组
+     */
+    private static String[] readNames(ByteBuffer buf, String[] strings) {
+        final String[] names = new String[readCount(buf)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = strings[buf.getInt()];
+        }
+        return names;
+    }
+
+    /**
+     * 读取数组长度，每个元素至少占4个字节，超过剩余内容时视为文件损坏，避免按错误的长度分配数组
+     *
+     * @param buf 文件内容
+     * @return 数组长度
+     * @throws IllegalArgumentException 长度为负数或超过剩余内容
+     */
+    private static int readCount(ByteBuffer buf) throws IllegalArgumentException {
+        final int count = buf.getInt();
+        if (count < 0 || count > buf.remaining() / 4) {
+            throw new IllegalArgumentException("Corrupt classpath index: bad count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * 加入字符串表
+     *
+     * @param stringTable 字符串表
+     * @param str         字符串，{@code null}忽略
+     */
+    private static void intern(Map<String, Integer> stringTable, String str) {
+        if (null != str) {
+            stringTable.putIfAbsent(str, stringTable.size());
+        }
+    }
+
+    /**
+     * 扫描单个条目
+     *
+     * @param path     条目路径
+     * @param file     目录或jar
+     * @param stat     长度和修改时间
+     * @param checksum 校验值
+     * @return 条目索引
+     */
+    private static ClasspathEntryIndex scanEntry(String path, File file, long[] stat, long checksum) {
+        final List<ClassFileInfo> classes = new ArrayList<>();
+        final List<String> resources = new ArrayList<>();
+        ClassFileScanner.scan(file, null, classes::add, resources::add);
+        return new ClasspathEntryIndex(path, stat[0], stat[1], checksum, classes, resources);
+    }
+
+    /**
+     * 获取条目的长度和修改时间<br>
+     * 目录的长度由其中所有文件的长度之和与文件数量组合而成，修改时间为所有文件和子目录的最大修改时间；
+     * 重命名或移动文件不改变文件自身的长度和修改时间，但会改变所在目录的修改时间
+     *
+     * @param file 目录或jar
+     * @return [长度, 修改时间]
+     */
+    private static long[] stat(File file) {
+        if (false == file.isDirectory()) {
+            return new long[]{file.length(), file.lastModified()};
+        }
+        final long[] stat = new long[2];
+        long totalSize = 0;
+        long fileCount = 0;
+        try (Stream<Path> stream = Files.walk(file.toPath())) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attrs.isRegularFile()) {
+                    totalSize += attrs.size();
+                    fileCount++;
+                }
+                stat[1] = Math.max(stat[1], attrs.lastModifiedTime().toMillis());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stat[0] = totalSize * 31 + fileCount;
+        return stat;
+    }
+
+    /**
+     * 计算条目校验值，jar为文件内容的CRC32，目录为其中文件相对路径、长度和修改时间的CRC32
+     *
+     * @param file 目录或jar
+     * @return 校验值
+     */
+    private static long checksum(File file) {
+        final CRC32 crc = new CRC32();
+        if (file.isDirectory()) {
+            final Path root = file.toPath();
+            final List<String> lines = new ArrayList<>();
+            walkDir(root, (path, attrs) -> lines.add(ClassFileScanner.toEntryName(root, path)
+                    + '|' + attrs.size() + '|' + attrs.lastModifiedTime().toMillis()));
+            // 遍历顺序与文件系统相关，排序后保证结果稳定
+            Collections.sort(lines);
+            lines.forEach(line -> crc.update(line.getBytes(StandardCharsets.UTF_8)));
+        } else {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * 遍历目录中的所有普通文件
+     *
+     * @param root    目录
+     * @param visitor 文件及其属性的处理函数
+     */
+    private static void walkDir(Path root, BiConsumer<Path, BasicFileAttributes> visitor) {
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.forEach(path -> {
+                final BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (attrs.isRegularFile()) {
+                    visitor.accept(path, attrs);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    // endregion
+
+}
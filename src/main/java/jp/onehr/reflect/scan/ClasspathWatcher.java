@@ -0,0 +1,516 @@
+package jp.onehr.reflect.scan;
+
+import jp.onehr.reflect.cache.CacheRegistry;
+import jp.onehr.reflect.clazz.ClasspathUtils;
+import jp.onehr.reflect.instance.ConstructorReflectUtils;
+import jp.onehr.reflect.instance.FieldReflectUtils;
+import jp.onehr.reflect.instance.MethodReflectUtils;
+import jp.onehr.reflect.text.CharPool;
+import jp.onehr.reflect.text.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * classpath目录监听器<br>
+ * 通过{@link WatchService}监听classpath中的目录条目（jar不监听），文件变化事件在静默期（默认200毫秒）后合并处理，
+ * 只清除受影响的类（以及以其为父类或接口的类）在{@link CacheRegistry}中各缓存（{@link MethodReflectUtils}、
+ * {@link FieldReflectUtils}、{@link ConstructorReflectUtils}等）的缓存，并同步更新关联的{@link ClassIndex}和{@link ClasspathIndex}。
+ * 适用于开发环境下的热部署，不需要重启即可使缓存失效。
+ *
+ * <pre>
+ * ClasspathWatcher watcher = new ClasspathWatcher()
+ *         .setClassIndex(index)
+ *         .setListener((classNames, resources) -&gt; log.info("reloaded: {}", classNames))
+ *         .start();
+ * ...
+ * watcher.close();
+ * </pre>
+ * <p>
+ * 变化处理在单独的后台线程中执行，与手动调用的{@link #flush()}串行，关联的{@link ClasspathIndex}不是线程安全的，处理时以其自身为锁。
+ */
+public class ClasspathWatcher implements Closeable {
+
+    /**
+     * 默认静默期，单位毫秒
+     */
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 200;
+    /**
+     * class文件扩展名
+     */
+    private static final String CLASS_EXT = ".class";
+
+    private final List<Path> roots = new ArrayList<>();
+    private final Map<WatchKey, Path> watchKeys = new HashMap<>();
+    /**
+     * 静默期内累积的变化：classpath根目录 -> 变化的文件
+     */
+    private final Map<Path, Set<Path>> pending = new HashMap<>();
+    /**
+     * 静默期内是否有新增或删除的文件，或事件溢出
+     */
+    private boolean structural;
+    private boolean overflow;
+    /**
+     * 串行化变化处理，后台的定时处理与调用方的{@link #flush()}不会同时执行
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private long debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+    private ClassIndex classIndex;
+    private ClasspathIndex classpathIndex;
+    private Listener listener;
+
+    private WatchService watchService;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> flushFuture;
+    private Thread pollThread;
+    private volatile boolean closed;
+
+    // region 构造
+
+    /**
+     * 构造，监听java.class.path中的所有目录
+     */
+    public ClasspathWatcher() {
+        this(ClasspathUtils.getJavaClassPaths());
+    }
+
+    /**
+     * 构造，监听给定路径中的目录，jar文件及不存在的路径忽略
+     *
+     * @param paths classpath路径
+     */
+    public ClasspathWatcher(String... paths) {
+        for (String path : paths) {
+            if (StringUtils.isNotBlank(path)) {
+                final File file = new File(path);
+                if (file.isDirectory()) {
+                    roots.add(file.toPath().toAbsolutePath().normalize());
+                }
+            }
+        }
+    }
+    // endregion
+
+    /**
+     * 设置静默期，在此时间内没有新的变化事件才开始处理
+     *
+     * @param debounceMillis 静默期，单位毫秒
+     * @return this
+     */
+    public ClasspathWatcher setDebounceMillis(long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("Debounce must not be negative: " + debounceMillis);
+        }
+        this.debounceMillis = debounceMillis;
+        return this;
+    }
+
+    /**
+     * 设置需要同步更新的类索引，变化的类重新解析，删除的类移除
+     *
+     * @param classIndex {@link ClassIndex}
+     * @return this
+     */
+    public ClasspathWatcher setClassIndex(ClassIndex classIndex) {
+        this.classIndex = classIndex;
+        return this;
+    }
+
+    /**
+     * 设置需要同步更新的classpath索引，发生变化的目录条目重新扫描
+     *
+     * @param classpathIndex {@link ClasspathIndex}
+     * @return this
+     */
+    public ClasspathWatcher setClasspathIndex(ClasspathIndex classpathIndex) {
+        this.classpathIndex = classpathIndex;
+        return this;
+    }
+
+    /**
+     * 设置变化监听，在缓存清除之后调用
+     *
+     * @param listener {@link Listener}
+     * @return this
+     */
+    public ClasspathWatcher setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 获取被监听的classpath根目录
+     *
+     * @return 根目录列表，只读
+     */
+    public List<Path> getRoots() {
+        return Collections.unmodifiableList(roots);
+    }
+
+    /**
+     * 开始监听，注册所有目录并启动后台线程
+     *
+     * @return this
+     */
+    public synchronized ClasspathWatcher start() {
+        if (null != watchService) {
+            throw new IllegalStateException("Watcher already started");
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            for (Path root : roots) {
+                registerAll(root);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> newDaemon(r, "classpath-watcher-flush"));
+        pollThread = newDaemon(this::poll, "classpath-watcher");
+        pollThread.start();
+        return this;
+    }
+
+    /**
+     * 立即处理所有累积的变化，不等待静默期结束<br>
+     * 正在进行的定时处理完成后才开始，各次处理按顺序串行执行
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            final Map<Path, Set<Path>> changes;
+            final boolean isStructural;
+            final boolean isOverflow;
+            synchronized (this) {
+                if (null != flushFuture) {
+                    flushFuture.cancel(false);
+                    flushFuture = null;
+                }
+                if (pending.isEmpty() && false == overflow) {
+                    return;
+                }
+                changes = new LinkedHashMap<>(pending);
+                isStructural = structural;
+                isOverflow = overflow;
+                pending.clear();
+                structural = false;
+                overflow = false;
+            }
+            process(changes, isStructural, isOverflow);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (null != scheduler) {
+                scheduler.shutdownNow();
+            }
+            if (null != watchService) {
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 变化监听
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * 在一批变化处理完成后调用
+         *
+         * @param classNames 变化（新增、修改或删除）的类名，事件溢出时为空
+         * @param resources  变化的非class资源路径，用/分隔，事件溢出时为空
+         */
+        void onChange(Set<String> classNames, Set<String> resources);
+    }
+
+    // region ----- private methods
+
+    /**
+     * 监听线程：接收事件并累积，每次事件推迟处理时间
+     */
+    private void poll() {
+        while (false == closed) {
+            final WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            final Path dir = watchKeys.get(key);
+            if (null != dir) {
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    onEvent(dir, event);
+                }
+            }
+            if (false == key.reset()) {
+                watchKeys.remove(key);
+            }
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * 处理单个事件，新建的目录同样注册监听
+     *
+     * @param dir   事件所在目录
+     * @param event 事件
+     */
+    private void onEvent(Path dir, WatchEvent<?> event) {
+        final WatchEvent.Kind<?> kind = event.kind();
+        if (StandardWatchEventKinds.OVERFLOW == kind) {
+            synchronized (this) {
+                overflow = true;
+            }
+            return;
+        }
+        final Path path = dir.resolve((Path) event.context());
+        final Path root = rootOf(path);
+        if (null == root) {
+            return;
+        }
+        if (StandardWatchEventKinds.ENTRY_CREATE == kind && Files.isDirectory(path)) {
+            // 新目录中可能已经有文件，全部视为新增
+            try {
+                registerAll(path);
+                try (Stream<Path> stream = Files.walk(path)) {
+                    stream.filter(Files::isRegularFile).forEach(file -> addPending(root, file, true));
+                }
+            } catch (IOException | UncheckedIOException e) {
+                // 目录在注册前被删除，忽略之
+            }
+            return;
+        }
+        addPending(root, path, StandardWatchEventKinds.ENTRY_MODIFY != kind);
+    }
+
+    /**
+     * 记录一个变化的文件
+     *
+     * @param root         所属classpath根目录
+     * @param path         文件
+     * @param isStructural 是否为新增或删除
+     */
+    private synchronized void addPending(Path root, Path path, boolean isStructural) {
+        pending.computeIfAbsent(root, k -> new LinkedHashSet<>()).add(path);
+        if (isStructural) {
+            structural = true;
+        }
+    }
+
+    /**
+     * 推迟处理时间到静默期之后
+     */
+    private synchronized void scheduleFlush() {
+        if (closed || (pending.isEmpty() && false == overflow)) {
+            return;
+        }
+        if (null != flushFuture) {
+            flushFuture.cancel(false);
+        }
+        flushFuture = scheduler.schedule(this::flushQuietly, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在后台线程中处理变化，异常不影响后续的监听
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // 单次处理失败（例如文件在读取时被删除），等待下一批变化
+        }
+    }
+
+    /**
+     * 处理一批变化：清除反射缓存，更新索引，通知监听
+     *
+     * @param changes      classpath根目录 -> 变化的文件
+     * @param isStructural 是否有新增或删除的文件
+     * @param isOverflow   是否有事件丢失
+     */
+    private void process(Map<Path, Set<Path>> changes, boolean isStructural, boolean isOverflow) {
+        final Set<String> classNames = new LinkedHashSet<>();
+        final Set<String> resources = new LinkedHashSet<>();
+        for (Map.Entry<Path, Set<Path>> entry : changes.entrySet()) {
+            final Path root = entry.getKey();
+            for (Path path : entry.getValue()) {
+                final String name = ClassFileScanner.toEntryName(root, path);
+                if (name.endsWith(CLASS_EXT)) {
+                    final String className = toClassName(name);
+                    classNames.add(className);
+                    updateClassIndex(className, path);
+                } else {
+                    resources.add(name);
+                }
+            }
+        }
+
+        if (isOverflow) {
+            // 事件丢失，无法确定影响范围，全部清除
+            CacheRegistry.clearAll();
+            rescanClasspathIndex(roots);
+        } else {
+            if (false == classNames.isEmpty()) {
+                CacheRegistry.evictClasses(clazz -> isAffected(clazz, classNames));
+            }
+            if (isStructural) {
+                // 新增或删除的资源会使缓存的查找结果（包括不存在的结果）失效
+                ClasspathUtils.clearResourceCache();
+            }
+            rescanClasspathIndex(changes.keySet());
+        }
+
+        if (null != listener) {
+            listener.onChange(isOverflow ? Collections.emptySet() : classNames,
+                    isOverflow ? Collections.emptySet() : resources);
+        }
+    }
+
+    /**
+     * 更新类索引：文件存在则重新解析，否则移除
+     *
+     * @param className 类名
+     * @param path      class文件
+     */
+    private void updateClassIndex(String className, Path path) {
+        if (null == classIndex) {
+            return;
+        }
+        if (Files.isRegularFile(path)) {
+            try {
+                ClassFileScanner.parseInto(Files.readAllBytes(path), classIndex::add);
+                return;
+            } catch (IOException e) {
+                // 文件在读取时被删除，按删除处理
+            }
+        }
+        classIndex.remove(className);
+    }
+
+    /**
+     * 重新扫描classpath索引中的目录条目
+     *
+     * @param changedRoots 发生变化的根目录
+     */
+    private void rescanClasspathIndex(Collection<Path> changedRoots) {
+        if (null == classpathIndex) {
+            return;
+        }
+        synchronized (classpathIndex) {
+            for (ClasspathEntryIndex entry : new ArrayList<>(classpathIndex.getEntries())) {
+                final Path entryPath = new File(entry.getPath()).toPath().toAbsolutePath().normalize();
+                if (changedRoots.contains(entryPath)) {
+                    classpathIndex.rescan(entry.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * 递归注册目录及其子目录
+     *
+     * @param dir 目录
+     * @throws IOException IO异常
+     */
+    private void registerAll(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.walk(dir)) {
+            final Iterator<Path> it = stream.filter(Files::isDirectory).iterator();
+            while (it.hasNext()) {
+                final Path sub = it.next();
+                final WatchKey key = sub.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchKeys.put(key, sub);
+            }
+        }
+    }
+
+    /**
+     * 查找文件所属的classpath根目录，根目录嵌套时取最近的一个
+     *
+     * @param path 文件
+     * @return 根目录，不属于任何根目录返回{@code null}
+     */
+    private Path rootOf(Path path) {
+        Path result = null;
+        for (Path root : roots) {
+            if (path.startsWith(root) && (null == result || root.getNameCount() > result.getNameCount())) {
+                result = root;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 类本身、父类或实现的接口中是否有发生变化的类
+     *
+     * @param clazz      类
+     * @param classNames 变化的类名
+     * @return 是否受影响
+     */
+    private static boolean isAffected(Class<?> clazz, Set<String> classNames) {
+        final Deque<Class<?>> queue = new ArrayDeque<>();
+        final Set<Class<?>> visited = new HashSet<>();
+        queue.add(clazz);
+        while (false == queue.isEmpty()) {
+            final Class<?> current = queue.poll();
+            if (false == visited.add(current)) {
+                continue;
+            }
+            if (classNames.contains(current.getName())) {
+                return true;
+            }
+            if (null != current.getSuperclass()) {
+                queue.add(current.getSuperclass());
+            }
+            Collections.addAll(queue, current.getInterfaces());
+        }
+        return false;
+    }
+
+    /**
+     * class条目名转换为类名，例如：com/example/Foo$Bar.class =》 com.example.Foo$Bar
+     *
+     * @param name 条目名
+     * @return 类名
+     */
+    private static String toClassName(String name) {
+        return name.substring(0, name.length() - CLASS_EXT.length()).replace(CharPool.SLASH, CharPool.DOT);
+    }
+
+    /**
+     * 创建守护线程
+     *
+     * @param runnable 任务
+     * @param name     线程名
+     * @return 线程
+     */
+    private static Thread newDaemon(Runnable runnable, String name) {
+        final Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+    // endregion
+
+}
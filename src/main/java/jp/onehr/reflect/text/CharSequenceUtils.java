@@ -2,6 +2,11 @@ package jp.onehr.reflect.text;
 
 public class CharSequenceUtils {
 
+    /**
+     * 字符串常量：空字符串 {@code ""}
+     */
+    public static final String EMPTY = "";
+
     /**
      * <p>字符串是否为空白，空白的定义如下：</p>
      * <ol>
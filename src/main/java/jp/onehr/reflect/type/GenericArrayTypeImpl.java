@@ -0,0 +1,45 @@
+package jp.onehr.reflect.type;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Type;
+import java.util.Objects;
+
+/**
+ * {@link GenericArrayType}实现，用于保存解析后仍含有泛型的数组类型<br>
+ * 元素类型解析为{@link Class}时应直接使用数组类，不使用此类。
+ */
+final class GenericArrayTypeImpl implements GenericArrayType {
+
+    private final Type genericComponentType;
+
+    /**
+     * 构造
+     *
+     * @param genericComponentType 元素类型
+     */
+    GenericArrayTypeImpl(Type genericComponentType) {
+        this.genericComponentType = genericComponentType;
+    }
+
+    @Override
+    public Type getGenericComponentType() {
+        return genericComponentType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GenericArrayType
+                && Objects.equals(genericComponentType, ((GenericArrayType) o).getGenericComponentType());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(genericComponentType);
+    }
+
+    @Override
+    public String toString() {
+        return genericComponentType.getTypeName() + "[]";
+    }
+
+}
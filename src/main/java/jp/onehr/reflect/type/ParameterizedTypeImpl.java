@@ -0,0 +1,86 @@
+package jp.onehr.reflect.type;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@link ParameterizedType}实现，用于保存解析后的泛型类型<br>
+ * {@link #equals(Object)}和{@link #hashCode()}与JDK的实现一致，可以与JDK返回的类型互相比较。
+ */
+final class ParameterizedTypeImpl implements ParameterizedType {
+
+    private final Type[] actualTypeArguments;
+    private final Type ownerType;
+    private final Type rawType;
+
+    /**
+     * 构造
+     *
+     * @param actualTypeArguments 实际的泛型参数类型
+     * @param ownerType           拥有者类型，没有时为{@code null}
+     * @param rawType             原始类型
+     */
+    ParameterizedTypeImpl(Type[] actualTypeArguments, Type ownerType, Type rawType) {
+        this.actualTypeArguments = actualTypeArguments;
+        this.ownerType = ownerType;
+        this.rawType = rawType;
+    }
+
+    @Override
+    public Type[] getActualTypeArguments() {
+        return actualTypeArguments.clone();
+    }
+
+    @Override
+    public Type getOwnerType() {
+        return ownerType;
+    }
+
+    @Override
+    public Type getRawType() {
+        return rawType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (false == (o instanceof ParameterizedType)) {
+            return false;
+        }
+        final ParameterizedType that = (ParameterizedType) o;
+        return Objects.equals(ownerType, that.getOwnerType())
+                && Objects.equals(rawType, that.getRawType())
+                && Arrays.equals(actualTypeArguments, that.getActualTypeArguments());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(actualTypeArguments) ^ Objects.hashCode(ownerType) ^ Objects.hashCode(rawType);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder();
+        if (null != ownerType && rawType instanceof Class) {
+            buf.append(ownerType.getTypeName()).append('$').append(((Class<?>) rawType).getSimpleName());
+        } else {
+            buf.append(rawType.getTypeName());
+        }
+        if (actualTypeArguments.length > 0) {
+            buf.append('<');
+            for (int i = 0; i < actualTypeArguments.length; i++) {
+                if (i > 0) {
+                    buf.append(", ");
+                }
+                buf.append(actualTypeArguments[i].getTypeName());
+            }
+            buf.append('>');
+        }
+        return buf.toString();
+    }
+
+}
@@ -0,0 +1,349 @@
+package jp.onehr.reflect.type;
+
+import jp.onehr.reflect.asserts.Assert;
+
+import java.lang.reflect.*;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 泛型类型解析器<br>
+ * 沿父类和接口层级，将各层声明的泛型变量解析为给定类中的实际类型，例如：
+ * <pre>
+ * class Base&lt;T&gt; { List&lt;T&gt; items; }
+ * class Mid&lt;E&gt; extends Base&lt;E&gt; {}
+ * class Foo extends Mid&lt;String&gt; {}
+ *
+ * TypeResolver.resolveFieldType(Foo.class, itemsField) =》 List&lt;String&gt;
+ * </pre>
+ * 每个类的泛型变量表在首次使用时计算一次，通过{@link ClassValue}挂在类自身上，父类的表被子类复用；
+ * 字段类型、方法返回值和参数类型的解析结果同样按类缓存，预热后的解析只需一次哈希查找。<br>
+ * 给定类自身声明的泛型变量以及方法上声明的泛型变量无法确定实际类型，保持为{@link TypeVariable}。
+ */
+public final class TypeResolver {
+
+    private static final ClassValue<Resolved> RESOLVED = new ClassValue<>() {
+        @Override
+        protected Resolved computeValue(Class<?> type) {
+            final Map<TypeVariable<?>, Type> typeMap = buildTypeMap(type);
+            return new Resolved(typeMap, findGenericSuperType(type, typeMap));
+        }
+    };
+
+    private TypeResolver() {
+    }
+
+    /**
+     * 获取类的泛型变量表，包括所有父类和接口中声明的泛型变量，值为在此类中的实际类型
+     *
+     * @param clazz 类，非{@code null}
+     * @return 泛型变量表，只读
+     */
+    public static Map<TypeVariable<?>, Type> getTypeMap(Class<?> clazz) {
+        Assert.notNull(clazz);
+        return RESOLVED.get(clazz).typeMap;
+    }
+
+    /**
+     * 获取类的第一个泛型父类型，先查找父类，父类不是泛型类型时查找接口<br>
+     * 父类为非泛型的类时继续向上查找
+     *
+     * @param clazz 类，非{@code null}
+     * @return 泛型父类型，没有时返回{@code null}
+     */
+    public static ParameterizedType getGenericSuperType(Class<?> clazz) {
+        Assert.notNull(clazz);
+        return RESOLVED.get(clazz).genericSuperType;
+    }
+
+    /**
+     * 在指定类中解析类型，将父类和接口中声明的泛型变量替换为实际类型，结果不缓存
+     *
+     * @param context 解析所在的类，非{@code null}
+     * @param type    被解析的类型
+     * @return 解析后的类型，{@code type}为{@code null}时返回{@code null}
+     */
+    public static Type resolve(Class<?> context, Type type) {
+        Assert.notNull(context);
+        if (null == type) {
+            return null;
+        }
+        return substitute(type, RESOLVED.get(context).typeMap);
+    }
+
+    /**
+     * 在指定类中解析字段的泛型类型，结果按类缓存
+     *
+     * @param context 解析所在的类，必须是字段所在类或其子类
+     * @param field   字段
+     * @return 字段的实际类型
+     * @throws IllegalArgumentException 字段不属于指定类
+     */
+    public static Type resolveFieldType(Class<?> context, Field field) {
+        final Resolved resolved = resolvedFor(context, field);
+        Type type = resolved.fieldTypes.get(field);
+        if (null == type) {
+            type = substitute(field.getGenericType(), resolved.typeMap);
+            final Type existing = resolved.fieldTypes.putIfAbsent(field, type);
+            if (null != existing) {
+                type = existing;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 在指定类中解析方法返回值的泛型类型，结果按类缓存
+     *
+     * @param context 解析所在的类，必须是方法所在类或其子类
+     * @param method  方法
+     * @return 返回值的实际类型
+     * @throws IllegalArgumentException 方法不属于指定类
+     */
+    public static Type resolveReturnType(Class<?> context, Method method) {
+        final Resolved resolved = resolvedFor(context, method);
+        Type type = resolved.returnTypes.get(method);
+        if (null == type) {
+            type = substitute(method.getGenericReturnType(), resolved.typeMap);
+            final Type existing = resolved.returnTypes.putIfAbsent(method, type);
+            if (null != existing) {
+                type = existing;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 在指定类中解析方法或构造方法参数的泛型类型，结果按类缓存
+     *
+     * @param context    解析所在的类，必须是方法所在类或其子类
+     * @param executable 方法或构造方法
+     * @return 参数的实际类型，每次返回新的数组
+     * @throws IllegalArgumentException 方法不属于指定类
+     */
+    public static Type[] resolveParamTypes(Class<?> context, Executable executable) {
+        final Resolved resolved = resolvedFor(context, executable);
+        Type[] types = resolved.paramTypes.get(executable);
+        if (null == types) {
+            types = executable.getGenericParameterTypes();
+            for (int i = 0; i < types.length; i++) {
+                types[i] = substitute(types[i], resolved.typeMap);
+            }
+            final Type[] existing = resolved.paramTypes.putIfAbsent(executable, types);
+            if (null != existing) {
+                types = existing;
+            }
+        }
+        return types.clone();
+    }
+
+    /**
+     * 解析父类型的泛型参数在指定类中的实际类型，例如：<br>
+     * {@code resolveTypeArguments(StringList.class, List.class)} =》 [String]
+     *
+     * @param context   解析所在的类
+     * @param superType 父类或接口，必须是{@code context}本身或其父类型
+     * @return 父类型各泛型参数的实际类型，父类型没有泛型参数时返回空数组，每次返回新的数组
+     * @throws IllegalArgumentException {@code superType}不是{@code context}的父类型
+     */
+    public static Type[] resolveTypeArguments(Class<?> context, Class<?> superType) {
+        Assert.notNull(context);
+        Assert.notNull(superType);
+        if (false == superType.isAssignableFrom(context)) {
+            throw new IllegalArgumentException(superType.getName() + " is not a super type of " + context.getName());
+        }
+        final Resolved resolved = RESOLVED.get(context);
+        Type[] types = resolved.typeArguments.get(superType);
+        if (null == types) {
+            final TypeVariable<?>[] variables = superType.getTypeParameters();
+            types = new Type[variables.length];
+            for (int i = 0; i < variables.length; i++) {
+                types[i] = resolved.typeMap.getOrDefault(variables[i], variables[i]);
+            }
+            final Type[] existing = resolved.typeArguments.putIfAbsent(superType, types);
+            if (null != existing) {
+                types = existing;
+            }
+        }
+        return types.clone();
+    }
+
+    // region 私有方法
+
+    /**
+     * 获取解析所在类的缓存，并检查成员属于此类
+     *
+     * @param context 解析所在的类
+     * @param member  成员
+     * @return 缓存
+     */
+    private static Resolved resolvedFor(Class<?> context, Member member) {
+        Assert.notNull(context);
+        Assert.notNull(member);
+        final Class<?> declaringClass = member.getDeclaringClass();
+        if (false == declaringClass.isAssignableFrom(context)) {
+            throw new IllegalArgumentException(member + " is not a member of " + context.getName());
+        }
+        return RESOLVED.get(context);
+    }
+
+    /**
+     * 构建类的泛型变量表，父类型的表从缓存中获取后替换为此类中的类型
+     *
+     * @param clazz 类
+     * @return 泛型变量表
+     */
+    private static Map<TypeVariable<?>, Type> buildTypeMap(Class<?> clazz) {
+        final Map<TypeVariable<?>, Type> typeMap = new HashMap<>();
+        final Class<?> superclass = clazz.getSuperclass();
+        if (null != superclass) {
+            bindSuperType(typeMap, clazz.getGenericSuperclass(), superclass);
+        }
+        final Type[] genericInterfaces = clazz.getGenericInterfaces();
+        final Class<?>[] interfaces = clazz.getInterfaces();
+        for (int i = 0; i < interfaces.length; i++) {
+            bindSuperType(typeMap, genericInterfaces[i], interfaces[i]);
+        }
+        return typeMap.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(typeMap);
+    }
+
+    /**
+     * 将直接父类型的泛型参数及其上层的泛型变量加入表中
+     *
+     * @param typeMap     泛型变量表
+     * @param genericType 直接父类型的泛型声明
+     * @param rawType     直接父类型
+     */
+    private static void bindSuperType(Map<TypeVariable<?>, Type> typeMap, Type genericType, Class<?> rawType) {
+        Map<TypeVariable<?>, Type> bindings = Collections.emptyMap();
+        if (genericType instanceof ParameterizedType) {
+            final TypeVariable<?>[] variables = rawType.getTypeParameters();
+            final Type[] arguments = ((ParameterizedType) genericType).getActualTypeArguments();
+            bindings = new HashMap<>(variables.length * 2);
+            for (int i = 0; i < variables.length; i++) {
+                bindings.put(variables[i], arguments[i]);
+            }
+            typeMap.putAll(bindings);
+        }
+        for (Map.Entry<TypeVariable<?>, Type> entry : RESOLVED.get(rawType).typeMap.entrySet()) {
+            typeMap.putIfAbsent(entry.getKey(), substitute(entry.getValue(), bindings));
+        }
+    }
+
+    /**
+     * 查找第一个泛型父类型
+     *
+     * @param clazz   类
+     * @param typeMap 类的泛型变量表
+     * @return 泛型父类型，没有时返回{@code null}
+     */
+    private static ParameterizedType findGenericSuperType(Class<?> clazz, Map<TypeVariable<?>, Type> typeMap) {
+        final Type genericSuper = clazz.getGenericSuperclass();
+        if (genericSuper instanceof ParameterizedType) {
+            return (ParameterizedType) genericSuper;
+        }
+        if (genericSuper instanceof Class && Object.class != genericSuper) {
+            final ParameterizedType superType = RESOLVED.get((Class<?>) genericSuper).genericSuperType;
+            if (null != superType) {
+                return (ParameterizedType) substitute(superType, typeMap);
+            }
+        }
+        for (Type genericInterface : clazz.getGenericInterfaces()) {
+            if (genericInterface instanceof ParameterizedType) {
+                return (ParameterizedType) genericInterface;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将类型中的泛型变量替换为表中的类型，没有变化的部分返回原对象
+     *
+     * @param type     类型
+     * @param bindings 泛型变量表
+     * @return 替换后的类型
+     */
+    static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+        if (bindings.isEmpty() || type instanceof Class) {
+            return type;
+        }
+        if (type instanceof TypeVariable) {
+            final Type bound = bindings.get(type);
+            return null == bound ? type : bound;
+        }
+        if (type instanceof ParameterizedType) {
+            final ParameterizedType parameterizedType = (ParameterizedType) type;
+            final Type ownerType = parameterizedType.getOwnerType();
+            final Type newOwnerType = null == ownerType ? null : substitute(ownerType, bindings);
+            final Type[] arguments = parameterizedType.getActualTypeArguments();
+            final boolean changed = substituteAll(arguments, bindings) || newOwnerType != ownerType;
+            return changed ? new ParameterizedTypeImpl(arguments, newOwnerType, parameterizedType.getRawType()) : type;
+        }
+        if (type instanceof GenericArrayType) {
+            final Type componentType = ((GenericArrayType) type).getGenericComponentType();
+            final Type newComponentType = substitute(componentType, bindings);
+            if (newComponentType == componentType) {
+                return type;
+            }
+            return newComponentType instanceof Class
+                    ? ((Class<?>) newComponentType).arrayType()
+                    : new GenericArrayTypeImpl(newComponentType);
+        }
+        if (type instanceof WildcardType) {
+            final WildcardType wildcardType = (WildcardType) type;
+            final Type[] upperBounds = wildcardType.getUpperBounds();
+            final Type[] lowerBounds = wildcardType.getLowerBounds();
+            final boolean upperChanged = substituteAll(upperBounds, bindings);
+            final boolean lowerChanged = substituteAll(lowerBounds, bindings);
+            return upperChanged || lowerChanged ? new WildcardTypeImpl(upperBounds, lowerBounds) : type;
+        }
+        return type;
+    }
+
+    /**
+     * 原地替换数组中的每个类型
+     *
+     * @param types    类型数组，会被修改
+     * @param bindings 泛型变量表
+     * @return 是否有类型发生变化
+     */
+    private static boolean substituteAll(Type[] types, Map<TypeVariable<?>, Type> bindings) {
+        boolean changed = false;
+        for (int i = 0; i < types.length; i++) {
+            final Type newType = substitute(types[i], bindings);
+            if (newType != types[i]) {
+                types[i] = newType;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // endregion
+
+    /**
+     * 单个类的解析结果
+     */
+    private static final class Resolved {
+        final Map<TypeVariable<?>, Type> typeMap;
+        final ParameterizedType genericSuperType;
+        final Map<Field, Type> fieldTypes = new ConcurrentHashMap<>();
+        final Map<Method, Type> returnTypes = new ConcurrentHashMap<>();
+        final Map<Executable, Type[]> paramTypes = new ConcurrentHashMap<>();
+        final Map<Class<?>, Type[]> typeArguments = new ConcurrentHashMap<>();
+
+        /**
+         * 构造
+         *
+         * @param typeMap          泛型变量表
+         * @param genericSuperType 第一个泛型父类型
+         */
+        Resolved(Map<TypeVariable<?>, Type> typeMap, ParameterizedType genericSuperType) {
+            this.typeMap = typeMap;
+            this.genericSuperType = genericSuperType;
+        }
+    }
+
+}
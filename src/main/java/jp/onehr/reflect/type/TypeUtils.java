@@ -0,0 +1,198 @@
+package jp.onehr.reflect.type;
+
+import java.lang.reflect.*;
+
+/**
+ * 针对 {@link Type} 的工具类封装<br>
+ * 最主要功能包括：
+ *
+ * <pre>
+ * 1. 获取方法的参数和返回值类型（包括Type和Class）
+ * 2. 获取泛型参数类型（包括对象的泛型参数或集合元素的泛型类型）
+ * </pre>
+ * <p>
+ * 需要解析父类或接口中的泛型变量时，传入所在的类，由{@link TypeResolver}解析并缓存。
+ */
+public class TypeUtils {
+
+    /**
+     * 获得Type对应的原始Class
+     *
+     * @param type {@link Type}
+     * @return 原始Class，无法确定时返回{@code null}
+     */
+    public static Class<?> getClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            final Class<?> componentClass = getClass(((GenericArrayType) type).getGenericComponentType());
+            return null == componentClass ? null : componentClass.arrayType();
+        } else if (type instanceof TypeVariable) {
+            final Type[] bounds = ((TypeVariable<?>) type).getBounds();
+            if (bounds.length == 1) {
+                return getClass(bounds[0]);
+            }
+        } else if (type instanceof WildcardType) {
+            final Type[] upperBounds = ((WildcardType) type).getUpperBounds();
+            if (upperBounds.length == 1) {
+                return getClass(upperBounds[0]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获得给定类的第一个泛型参数
+     *
+     * @param type 被检查的类型，必须是已经确定泛型类型的类型
+     * @return {@link Type}，可能为{@code null}
+     */
+    public static Type getTypeArgument(Type type) {
+        return getTypeArgument(type, 0);
+    }
+
+    /**
+     * 获得给定类的泛型参数
+     *
+     * @param type  被检查的类型，必须是已经确定泛型类型的类
+     * @param index 泛型类型的索引号，即第几个泛型类型
+     * @return {@link Type}，可能为{@code null}
+     */
+    public static Type getTypeArgument(Type type, int index) {
+        final Type[] typeArguments = getTypeArguments(type);
+        if (null != typeArguments && index >= 0 && typeArguments.length > index) {
+            return typeArguments[index];
+        }
+        return null;
+    }
+
+    /**
+     * 获得指定类型中所有泛型参数类型，例如：
+     *
+     * <pre>
+     * class A&lt;T&gt;
+     * class B extends A&lt;String&gt;
+     * </pre>
+     * <p>
+     * 通过此方法，传入B.class即可得到String
+     *
+     * @param type 指定类型
+     * @return 所有泛型参数类型，没有泛型参数时返回{@code null}
+     */
+    public static Type[] getTypeArguments(Type type) {
+        final ParameterizedType parameterizedType = toParameterizedType(type);
+        return null == parameterizedType ? null : parameterizedType.getActualTypeArguments();
+    }
+
+    /**
+     * 将{@link Type} 转换为{@link ParameterizedType}<br>
+     * {@link ParameterizedType}用于获取当前类或父类中泛型参数化后的类型<br>
+     * 一般用于获取泛型参数具体的参数类型，例如：
+     *
+     * <pre>
+     * class A&lt;T&gt;
+     * class B extends A&lt;String&gt;
+     * </pre>
+     * <p>
+     * 通过此方法，传入B.class即可得到B{@link ParameterizedType}，从而获取到String
+     *
+     * @param type {@link Type}
+     * @return {@link ParameterizedType}，没有泛型父类型时返回{@code null}
+     */
+    public static ParameterizedType toParameterizedType(Type type) {
+        if (type instanceof ParameterizedType) {
+            return (ParameterizedType) type;
+        }
+        if (type instanceof Class) {
+            return TypeResolver.getGenericSuperType((Class<?>) type);
+        }
+        return null;
+    }
+
+    /**
+     * 获取父类或接口的泛型参数在指定类中的实际类型，例如：
+     *
+     * <pre>
+     * class StringList extends ArrayList&lt;String&gt;
+     * </pre>
+     * <p>
+     * {@code getTypeArguments(StringList.class, List.class)} =》 [String]
+     *
+     * @param clazz     类
+     * @param superType 父类或接口
+     * @return 泛型参数的实际类型，无法确定的保持为{@link TypeVariable}
+     * @throws IllegalArgumentException {@code superType}不是{@code clazz}的父类型
+     */
+    public static Type[] getTypeArguments(Class<?> clazz, Class<?> superType) {
+        return TypeResolver.resolveTypeArguments(clazz, superType);
+    }
+
+    /**
+     * 获取字段在指定类中的实际类型，父类中使用泛型变量声明的字段会被解析为实际类型
+     *
+     * @param clazz 字段所在类或其子类
+     * @param field 字段
+     * @return 字段的实际类型
+     */
+    public static Type getFieldType(Class<?> clazz, Field field) {
+        return TypeResolver.resolveFieldType(clazz, field);
+    }
+
+    /**
+     * 获取字段在指定类中的实际类型对应的Class
+     *
+     * @param clazz 字段所在类或其子类
+     * @param field 字段
+     * @return 字段类型，无法确定时返回{@code null}
+     */
+    public static Class<?> getFieldClass(Class<?> clazz, Field field) {
+        return getClass(getFieldType(clazz, field));
+    }
+
+    /**
+     * 获取方法返回值在指定类中的实际类型
+     *
+     * @param clazz  方法所在类或其子类
+     * @param method 方法
+     * @return 返回值的实际类型
+     */
+    public static Type getReturnType(Class<?> clazz, Method method) {
+        return TypeResolver.resolveReturnType(clazz, method);
+    }
+
+    /**
+     * 获取方法参数在指定类中的实际类型
+     *
+     * @param clazz  方法所在类或其子类
+     * @param method 方法
+     * @return 参数的实际类型
+     */
+    public static Type[] getParamTypes(Class<?> clazz, Method method) {
+        return TypeResolver.resolveParamTypes(clazz, method);
+    }
+
+    /**
+     * 获取类型在指定类中的实际类型，父类或接口中声明的泛型变量被替换为实际类型
+     *
+     * @param clazz 类
+     * @param type  类型
+     * @return 实际类型
+     */
+    public static Type getActualType(Class<?> clazz, Type type) {
+        return TypeResolver.resolve(clazz, type);
+    }
+
+    /**
+     * 是否未知类型<br>
+     * type为{@code null}或者{@link TypeVariable} 都视为未知类型
+     *
+     * @param type Type类型
+     * @return 是否未知类型
+     */
+    public static boolean isUnknown(Type type) {
+        return null == type || type instanceof TypeVariable;
+    }
+
+}
@@ -0,0 +1,62 @@
+package jp.onehr.reflect.type;
+
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+
+/**
+ * {@link WildcardType}实现，用于保存上下界解析后的通配符类型
+ */
+final class WildcardTypeImpl implements WildcardType {
+
+    private final Type[] upperBounds;
+    private final Type[] lowerBounds;
+
+    /**
+     * 构造
+     *
+     * @param upperBounds 上界
+     * @param lowerBounds 下界
+     */
+    WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
+        this.upperBounds = upperBounds;
+        this.lowerBounds = lowerBounds;
+    }
+
+    @Override
+    public Type[] getUpperBounds() {
+        return upperBounds.clone();
+    }
+
+    @Override
+    public Type[] getLowerBounds() {
+        return lowerBounds.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (false == (o instanceof WildcardType)) {
+            return false;
+        }
+        final WildcardType that = (WildcardType) o;
+        return Arrays.equals(lowerBounds, that.getLowerBounds())
+                && Arrays.equals(upperBounds, that.getUpperBounds());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(lowerBounds) ^ Arrays.hashCode(upperBounds);
+    }
+
+    @Override
+    public String toString() {
+        if (lowerBounds.length > 0) {
+            return "? super " + lowerBounds[0].getTypeName();
+        }
+        if (0 == upperBounds.length || Object.class == upperBounds[0]) {
+            return "?";
+        }
+        return "? extends " + upperBounds[0].getTypeName();
+    }
+
+}
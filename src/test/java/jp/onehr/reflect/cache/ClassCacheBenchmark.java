@@ -0,0 +1,191 @@
+package jp.onehr.reflect.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * {@link ClassCache}各实现的查找耗时和内存占用对比<br>
+ * 以java.base模块中的类为键，值为同一个对象，只比较缓存自身的开销：
+ *
+ * <pre>
+ * java -cp ... jp.onehr.reflect.cache.ClassCacheBenchmark [类数量] [轮数] [实现名]
+ * </pre>
+ * <p>
+ * 未指定实现名时，每个实现在单独的JVM中运行（继承当前JVM的参数），避免多个实现共用同一个查找调用点导致多态内联失效，
+ * 以及前一个实现的残留对象影响后一个实现的内存测量。<br>
+ * 内存为填充前后{@link MemoryMXBean}报告的堆占用之差，填充前已完成类加载和预先的GC，建议使用{@code -XX:+UseSerialGC}运行以减少误差；
+ * 查找耗时为预热后命中查找的平均耗时。
+ */
+public class ClassCacheBenchmark {
+
+    private static final Object VALUE = new Object();
+    private static final Function<Class<?>, Object> LOADER = clazz -> VALUE;
+    private static final String[] IMPLS = {"map", "classValue", "compact"};
+
+    /**
+     * 入口
+     *
+     * @param args 类数量（默认5000）、轮数（默认200）、实现名（默认依次在子进程中运行所有实现）
+     * @throws Exception 子进程启动失败或被中断
+     */
+    public static void main(String[] args) throws Exception {
+        final int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        if (args.length > 2) {
+            run(args[2], classCount, rounds);
+            return;
+        }
+
+        final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (String impl : IMPLS) {
+            final List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(ClassCacheBenchmark.class.getName());
+            command.add(String.valueOf(classCount));
+            command.add(String.valueOf(rounds));
+            command.add(impl);
+            final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+            if (0 != exitCode) {
+                throw new IllegalStateException(impl + " exited with code " + exitCode);
+            }
+        }
+    }
+
+    /**
+     * 在当前JVM中测试一个实现
+     *
+     * @param name       实现名
+     * @param classCount 类数量
+     * @param rounds     轮数
+     */
+    private static void run(String name, int classCount, int rounds) {
+        final Supplier<ClassCache<Object>> factory = switch (name) {
+            case "map" -> MapClassCache::new;
+            case "classValue" -> ClassValueCache::new;
+            case "compact" -> CompactClassCache::new;
+            default -> throw new IllegalArgumentException("Unknown class cache: " + name);
+        };
+        // 前一半的类用于预先填充一个丢弃的缓存，使实现及其依赖的延迟初始化完成，不计入内存；
+        // 测量使用另一半从未放入缓存的类，ClassValue在每个类上创建的ClassValueMap等开销完整计入
+        final Class<?>[] loaded = loadClasses(classCount * 2);
+        final Class<?>[] classes = Arrays.copyOfRange(loaded, loaded.length / 2, loaded.length);
+        fill(factory.get(), Arrays.copyOf(loaded, loaded.length / 2));
+        final long before = usedHeap();
+        final ClassCache<Object> cache = fill(factory.get(), classes);
+        final long bytes = usedHeap() - before;
+
+        // 预热
+        lookup(cache, classes, Math.max(1, rounds / 4));
+        final long start = System.nanoTime();
+        final long checksum = lookup(cache, classes, rounds);
+        final long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-10s classes: %d, lookup: %6.2f ns/op, memory: %8d bytes (%5.1f bytes/class), checksum: %d%n",
+                name, classes.length, (double) elapsed / ((long) rounds * classes.length),
+                bytes, (double) bytes / classes.length, checksum);
+    }
+
+    /**
+     * 将所有类放入缓存
+     *
+     * @param cache   缓存
+     * @param classes 键
+     * @return 缓存
+     */
+    private static ClassCache<Object> fill(ClassCache<Object> cache, Class<?>[] classes) {
+        for (Class<?> clazz : classes) {
+            cache.get(clazz, LOADER);
+        }
+        return cache;
+    }
+
+    /**
+     * 循环查找
+     *
+     * @param cache   缓存
+     * @param classes 键
+     * @param rounds  轮数
+     * @return 命中数，防止查找被优化掉
+     */
+    private static long lookup(ClassCache<Object> cache, Class<?>[] classes, int rounds) {
+        long hits = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (Class<?> clazz : classes) {
+                if (VALUE == cache.get(clazz, LOADER)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 反复GC直到堆占用稳定（连续两次相同，最多20次）后获取堆占用<br>
+     * 前几次GC后的堆占用会有数百KB的波动，只执行固定次数时差值可能为负
+     *
+     * @return 已使用的堆字节数
+     */
+    private static long usedHeap() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = -1;
+        for (int i = 0; i < 20; i++) {
+            System.gc();
+            final long current = memory.getHeapMemoryUsage().getUsed();
+            if (current == used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+
+    /**
+     * 从java.base模块加载指定数量的类，不初始化
+     *
+     * @param count 数量
+     * @return 类
+     */
+    private static Class<?>[] loadClasses(int count) {
+        final List<Class<?>> classes = new ArrayList<>(count);
+        final FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        final Path root = jrt.getPath("/modules/java.base");
+        try (Stream<Path> paths = Files.walk(root)) {
+            final List<String> names = paths
+                    .map(path -> root.relativize(path).toString())
+                    .filter(name -> name.endsWith(".class") && false == name.contains("-"))
+                    .map(name -> name.substring(0, name.length() - 6).replace('/', '.'))
+                    .toList();
+            for (String name : names) {
+                if (classes.size() >= count) {
+                    break;
+                }
+                try {
+                    classes.add(Class.forName(name, false, null));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    // 跳过无法加载的类
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return classes.toArray(new Class<?>[0]);
+    }
+
+}